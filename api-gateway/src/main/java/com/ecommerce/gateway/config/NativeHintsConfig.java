@@ -0,0 +1,33 @@
+package com.ecommerce.gateway.config;
+
+import com.ecommerce.gateway.dto.OrderItemResponse;
+import com.ecommerce.gateway.dto.OrderResponse;
+import com.ecommerce.gateway.dto.ProductSummary;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection hints for the native image (-Pnative) that neither Spring AOT nor
+ * the GraalVM reachability metadata cover. No effect on the JVM.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.Hints.class)
+// Only read by OrderDetailsService's WebClients, where AOT does not look
+@RegisterReflectionForBinding({OrderResponse.class, OrderItemResponse.class, ProductSummary.class})
+public class NativeHintsConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Nimbus parses JOSE headers and claims with its shaded Gson
+            hints.reflection().registerType(
+                    TypeReference.of("com.nimbusds.jose.shaded.gson.internal.LinkedTreeMap"), MemberCategory.values());
+        }
+    }
+}
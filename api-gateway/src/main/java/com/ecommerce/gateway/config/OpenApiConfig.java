@@ -70,6 +70,7 @@ public class OpenApiConfig {
 
         components.addSchemas("ProductRequest", createProductRequestSchema());
         components.addSchemas("ProductResponse", createProductResponseSchema());
+        components.addSchemas("ProductSummary", createProductSummarySchema());
         components.addSchemas("SearchRequest", createSearchRequestSchema());
 
         components.addSchemas("OrderRequest", createOrderRequestSchema());
@@ -235,7 +236,7 @@ public class OpenApiConfig {
         pathItem.setGet(new Operation()
                 .tags(List.of("Product Management"))
                 .summary("Get all products")
-                .description("Retrieves all products. Optionally filter by category. Public endpoint.")
+                .description("Retrieves all products, without descriptions. Optionally filter by category. Public endpoint.")
                 .addParametersItem(new Parameter()
                         .name("category")
                         .in("query")
@@ -247,7 +248,8 @@ public class OpenApiConfig {
                                 .content(new Content()
                                         .addMediaType("application/json", new MediaType()
                                                 .schema(new ArraySchema()
-                                                        .items(createSchemaRef("#/components/schemas/ProductResponse"))))))));
+                                                        .items(createSchemaRef("#/components/schemas/ProductSummary"))))))
+                        .addApiResponse("304", new ApiResponse().description("Not modified since the ETag (If-None-Match) or Last-Modified (If-Modified-Since) sent"))));
 
         // POST /api/products
         pathItem.setPost(new Operation()
@@ -287,6 +289,7 @@ public class OpenApiConfig {
                                 .content(new Content()
                                         .addMediaType("application/json", new MediaType()
                                                 .schema(createSchemaRef("#/components/schemas/ProductResponse")))))
+                        .addApiResponse("304", new ApiResponse().description("Not modified since the ETag (If-None-Match) or Last-Modified (If-Modified-Since) sent"))
                         .addApiResponse("404", new ApiResponse().description("Product not found"))));
 
         // PUT /api/products/{id}
@@ -338,7 +341,7 @@ public class OpenApiConfig {
                         .summary("Search products")
                         .description("Search products by name (partial match) and/or category. " +
                                 "Name search is case-insensitive partial match (e.g., 'ta' matches 'table'). " +
-                                "Category search is exact match (case-insensitive). Public endpoint.")
+                                "Category search is exact match (case-insensitive). Results leave out the description. Public endpoint.")
                         .requestBody(new RequestBody()
                                 .required(true)
                                 .content(new Content()
@@ -350,7 +353,7 @@ public class OpenApiConfig {
                                         .content(new Content()
                                                 .addMediaType("application/json", new MediaType()
                                                         .schema(new ArraySchema()
-                                                                .items(new Schema<>().$ref("#/components/schemas/ProductResponse"))))))));
+                                                                .items(new Schema<>().$ref("#/components/schemas/ProductSummary"))))))));
     }
 
     private PathItem createReduceStockPath() {
@@ -414,6 +417,7 @@ public class OpenApiConfig {
                                                 .addMediaType("application/json", new MediaType()
                                                         .schema(new ArraySchema()
                                                                 .items(new Schema<>().$ref("#/components/schemas/OrderResponse"))))))
+                                .addApiResponse("304", new ApiResponse().description("Not modified since the ETag (If-None-Match) or Last-Modified (If-Modified-Since) sent"))
                                 .addApiResponse("401", new ApiResponse().description("Unauthorized"))));
     }
 
@@ -547,10 +551,28 @@ public class OpenApiConfig {
         return schema;
     }
 
+    private Schema<?> createProductSummarySchema() {
+        ObjectSchema schema = new ObjectSchema();
+        schema.addProperty("id", new IntegerSchema().format("int64").description("Product ID"));
+        schema.addProperty("name", new StringSchema().description("Product name"));
+        schema.addProperty("price", new IntegerSchema().format("int64").description("Price in cents"));
+        schema.addProperty("stockQuantity", new IntegerSchema().description("Stock quantity"));
+        schema.addProperty("category", new StringSchema().description("Product category"));
+        schema.addProperty("isAvailable", new BooleanSchema().description("Whether product is available"));
+        return schema;
+    }
+
     private Schema<?> createSearchRequestSchema() {
         ObjectSchema schema = new ObjectSchema();
         schema.addProperty("name", new StringSchema().description("Product name (partial match, case-insensitive)"));
         schema.addProperty("category", new StringSchema().description("Product category (exact match, case-insensitive)"));
+        schema.addProperty("minPrice", new IntegerSchema().format("int64").description("Lowest price in cents (inclusive)"));
+        schema.addProperty("maxPrice", new IntegerSchema().format("int64").description("Highest price in cents (inclusive)"));
+        schema.addProperty("inStock", new BooleanSchema().description("Only products with stock left"));
+        schema.addProperty("sort", new StringSchema()._enum(List.of("PRICE", "PRICE_DESC", "NAME", "NEWEST"))
+                .description("Sort order; by id when omitted"));
+        schema.addProperty("page", new IntegerSchema().description("Page number, from 0"));
+        schema.addProperty("size", new IntegerSchema().description("Page size (default 50, at most 200)"));
         return schema;
     }
 
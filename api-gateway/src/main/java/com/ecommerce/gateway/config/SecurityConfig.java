@@ -1,5 +1,7 @@
 package com.ecommerce.gateway.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +15,7 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtGra
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import javax.crypto.spec.SecretKeySpec;
 import java.util.Base64;
@@ -31,6 +34,8 @@ public class SecurityConfig {
                 .authorizeExchange(exchanges -> exchanges
                         .pathMatchers("/swagger-ui/**", "/swagger-ui.html", "/swagger-ui/index.html", "/v3/api-docs/**", "/favicon.ico", "/swagger-ui.css", "/swagger-ui-bundle.js", "/swagger-ui-standalone-preset.js").permitAll()
                         .pathMatchers("/api/auth/register", "/api/auth/login").permitAll()
+                        .pathMatchers("/actuator/health/**").permitAll()
+                        .pathMatchers("/actuator/prometheus", "/actuator/metrics/**").hasAuthority("ROLE_ADMIN")
                         .pathMatchers("/api/auth/change-password").authenticated()
                         .pathMatchers("/api/auth/admin/**", "/api/auth/admin-reset").hasAuthority("ROLE_ADMIN")
 
@@ -44,10 +49,16 @@ public class SecurityConfig {
 
                         .pathMatchers(HttpMethod.POST, "/api/orders").authenticated()
                         .pathMatchers("/api/orders/my-orders").authenticated()
+                        .pathMatchers(HttpMethod.GET, "/api/orders/*/status/stream").authenticated()
                         .pathMatchers(HttpMethod.GET, "/api/orders/{id}").hasAuthority("ROLE_ADMIN")
+                        .pathMatchers(HttpMethod.GET, "/api/orders/reports/**").hasAuthority("ROLE_ADMIN")
                         .pathMatchers("/api/orders/*/confirm", "/api/orders/*/cancel").denyAll()
 
+                        .pathMatchers(HttpMethod.GET, "/api/order-details/my-orders").authenticated()
+                        .pathMatchers(HttpMethod.GET, "/api/order-details/{id}").hasAuthority("ROLE_ADMIN")
+
                         .pathMatchers(HttpMethod.POST, "/api/payments/webhook").permitAll()
+                        .pathMatchers("/api/payments/reconcile").denyAll()
                         .pathMatchers("/api/payments/**").authenticated()
 
                         .anyExchange().authenticated()
@@ -57,14 +68,30 @@ public class SecurityConfig {
     }
 
     @Bean
-    public ReactiveJwtDecoder jwtDecoder() {
+    public ReactiveJwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
         byte[] keyBytes = Base64.getDecoder().decode(secretKey);
 
         SecretKeySpec spec = new SecretKeySpec(keyBytes, "HmacSHA384");
 
-        return NimbusReactiveJwtDecoder.withSecretKey(spec)
+        ReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withSecretKey(spec)
                 .macAlgorithm(MacAlgorithm.HS384)
                 .build();
+
+        Timer valid = jwtVerificationTimer(meterRegistry, "valid");
+        Timer invalid = jwtVerificationTimer(meterRegistry, "invalid");
+        return token -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return decoder.decode(token)
+                    .doOnSuccess(jwt -> sample.stop(valid))
+                    .doOnError(e -> sample.stop(invalid));
+        });
+    }
+
+    private static Timer jwtVerificationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Time to verify a JWT and parse its claims")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Bean
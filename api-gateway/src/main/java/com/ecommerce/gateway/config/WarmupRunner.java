@@ -0,0 +1,132 @@
+package com.ecommerce.gateway.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up before readiness (see application.warmup): the route cache, the proxy's
+ * connections to application.warmup.endpoints, the rate limiter's Redis script and JWTs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationRunner {
+
+    private final RouteLocator routeLocator;
+    private final HttpClient httpClient;
+    private final RedisRateLimiter rateLimiter;
+    private final ReactiveJwtAuthenticationConverter jwtAuthenticationConverter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${application.warmup.endpoints:}")
+    private List<String> endpoints;
+
+    @Value("${application.warmup.connections:4}")
+    private int connections;
+
+    @Value("${application.warmup.timeout:10s}")
+    private Duration timeout;
+
+    @Value("${application.security.jwt.secret-key}")
+    private String secretKey;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Timer.Sample total = Timer.start(meterRegistry);
+        // Building the routes also hands the rate limiter its per-route config
+        step("routes", () -> routeLocator.getRoutes().collectList().block(timeout));
+        step("http", this::endpoints);
+        step("redis", this::redis);
+        step("jwt", this::jwt);
+        long elapsed = total.stop(meterRegistry.timer("warmup.duration", "step", "total"));
+        log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    // Through the proxy's own client, so these are the connections requests will reuse; any status will do
+    private void endpoints() {
+        Flux.fromIterable(endpoints)
+                .flatMap(uri -> Flux.range(0, connections)
+                        .flatMap(i -> httpClient.get().uri(uri).responseSingle((response, body) -> body.then()))
+                        .onErrorResume(e -> {
+                            log.warn("Warm-up could not reach {}: {}", uri, e.getMessage());
+                            return Mono.empty();
+                        }))
+                .blockLast(timeout);
+    }
+
+    // Loads the rate limiter script under a key no client uses
+    private void redis() {
+        Flux.fromIterable(rateLimiter.getConfig().keySet())
+                .flatMap(routeId -> rateLimiter.isAllowed(routeId, "warmup"))
+                .blockLast(timeout);
+    }
+
+    // A decoder of its own, so that jwt.verification only counts real requests
+    private void jwt() throws Exception {
+        byte[] key = Base64.getDecoder().decode(secretKey);
+        ReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withSecretKey(new SecretKeySpec(key, "HmacSHA384"))
+                .macAlgorithm(MacAlgorithm.HS384)
+                .build();
+        SignedJWT token = new SignedJWT(new JWSHeader(JWSAlgorithm.HS384), new JWTClaimsSet.Builder()
+                .subject("warmup@example.invalid")
+                .claim("roles", List.of("ROLE_USER"))
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + timeout.toMillis()))
+                .build());
+        token.sign(new MACSigner(key));
+        String serialized = token.serialize();
+        for (int i = 0; i < iterations; i++) {
+            jwtAuthenticationConverter.convert(decoder.decode(serialized).block(timeout)).block(timeout);
+        }
+    }
+
+    private void step(String name, Step step) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            step.run();
+        } catch (Exception e) {
+            log.warn("Warm-up step {} failed: {}", name, e.toString());
+        }
+        sample.stop(meterRegistry.timer("warmup.duration", "step", name));
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+}
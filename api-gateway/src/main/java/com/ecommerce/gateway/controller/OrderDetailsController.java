@@ -0,0 +1,47 @@
+package com.ecommerce.gateway.controller;
+
+import com.ecommerce.gateway.dto.OrderDetails;
+import com.ecommerce.gateway.service.OrderDetailsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Orders with their products in one response, for order pages. Served by the gateway
+ * itself; the routes to order-service and product-service are not involved.
+ */
+@RestController
+@RequestMapping("/api/order-details")
+@RequiredArgsConstructor
+public class OrderDetailsController {
+
+    private final OrderDetailsService orderDetailsService;
+
+    @GetMapping("/my-orders")
+    public Mono<ResponseEntity<List<OrderDetails>>> getMyOrders(@AuthenticationPrincipal Jwt jwt) {
+        return orderDetailsService.getMyOrders(jwt.getSubject(), bearer(jwt)).map(OrderDetailsController::ok);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<OrderDetails>> getOrder(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt) {
+        return orderDetailsService.getOrder(id, jwt.getSubject(), bearer(jwt)).map(OrderDetailsController::ok);
+    }
+
+    private static String bearer(Jwt jwt) {
+        return "Bearer " + jwt.getTokenValue();
+    }
+
+    // Per user, like the orders it is built from
+    private static <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(body);
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.gateway.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An order with the products it refers to, for GET /api/order-details. {@code partial}
+ * is set when product-service did not answer in time; the items then have no product.
+ * An item whose product was deleted has none either, without the order being partial.
+ */
+public record OrderDetails(
+        Long orderId,
+        String userEmail,
+        List<Item> items,
+        Long totalAmount,
+        String status,
+        LocalDateTime orderDate,
+        String checkoutUrl,
+        boolean partial
+) {
+
+    public record Item(
+            Long productId,
+            Integer quantity,
+            Long priceAtPurchase,
+            Long itemSubtotal,
+            ProductSummary product
+    ) {}
+}
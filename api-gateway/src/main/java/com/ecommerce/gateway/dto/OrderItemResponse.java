@@ -0,0 +1,8 @@
+package com.ecommerce.gateway.dto;
+
+public record OrderItemResponse(
+        Long productId,
+        Integer quantity,
+        Long priceAtPurchase,
+        Long itemSubtotal
+) {}
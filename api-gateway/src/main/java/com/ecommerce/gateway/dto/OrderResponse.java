@@ -0,0 +1,15 @@
+package com.ecommerce.gateway.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** An order as order-service returns it. */
+public record OrderResponse(
+        Long orderId,
+        String userEmail,
+        List<OrderItemResponse> items,
+        Long totalAmount,
+        String status,
+        LocalDateTime orderDate,
+        String checkoutUrl
+) {}
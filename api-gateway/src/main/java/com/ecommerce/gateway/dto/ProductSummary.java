@@ -0,0 +1,11 @@
+package com.ecommerce.gateway.dto;
+
+/** A product as GET /api/products/batch returns it; no description. */
+public record ProductSummary(
+        Long id,
+        String name,
+        Long price,
+        Integer stockQuantity,
+        String category,
+        boolean isAvailable
+) {}
@@ -0,0 +1,135 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.filter.RequestCoalescingFilter.Flight;
+import com.ecommerce.gateway.filter.RequestCoalescingFilter.SharedResponse;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * The other half of {@link RequestCoalescingFilter}. NettyWriteResponseFilter writes the
+ * upstream body to the response of the exchange it was given, after the rest of the
+ * chain has run, so the response has to be wrapped before that filter. The copy is
+ * taken while the body streams to the leader's client, which does not wait for it,
+ * and is published to the waiters once the upstream body is complete.
+ */
+@Component
+public class CoalescingCaptureFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new CapturingResponse(exchange)).build())
+                // no-op once the response was published; releases the waiters otherwise
+                .doFinally(signal -> {
+                    Flight flight = exchange.getAttribute(RequestCoalescingFilter.FLIGHT_ATTR);
+                    if (flight != null) {
+                        flight.abandon();
+                    }
+                });
+    }
+
+    private static final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+
+        CapturingResponse(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            // Set by RequestCoalescingFilter further down the chain, on the leader only
+            Flight flight = exchange.getAttribute(RequestCoalescingFilter.FLIGHT_ATTR);
+            if (flight == null) {
+                return super.writeWith(body);
+            }
+            HttpHeaders headers = getHeaders();
+            if (!SharedResponse.sharable(headers, flight.credentialsInKey())
+                    || headers.getContentLength() > flight.maxBodySize()) {
+                flight.abandon();
+                return super.writeWith(body);
+            }
+
+            // Upstream headers only: the security headers are added when the response commits
+            HttpHeaders snapshot = new HttpHeaders();
+            headers.forEach((name, values) -> snapshot.put(name, new ArrayList<>(values)));
+            HttpStatusCode status = getStatusCode() != null ? getStatusCode() : HttpStatus.OK;
+            Capture capture = new Capture(flight);
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> capture.publish(status, snapshot)));
+        }
+
+        // A streamed response is flushed piece by piece and has no end to wait for
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            Flight flight = exchange.getAttribute(RequestCoalescingFilter.FLIGHT_ATTR);
+            if (flight != null) {
+                flight.abandon();
+            }
+            return super.writeAndFlushWith(body);
+        }
+    }
+
+    // Signals of one body arrive one at a time, so no synchronization is needed
+    private static final class Capture {
+
+        private final Flight flight;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        Capture(Flight flight) {
+            this.flight = flight;
+        }
+
+        void append(DataBuffer buffer) {
+            if (copy == null) {
+                return;
+            }
+            if (copy.size() + buffer.readableByteCount() > flight.maxBodySize()) {
+                copy = null;
+                flight.abandon();
+                return;
+            }
+            // Reads through views, so the buffer's own read position is left for the client
+            try (DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers()) {
+                while (views.hasNext()) {
+                    ByteBuffer view = views.next();
+                    byte[] bytes = new byte[view.remaining()];
+                    view.get(bytes);
+                    copy.writeBytes(bytes);
+                }
+            }
+        }
+
+        void publish(HttpStatusCode status, HttpHeaders headers) {
+            if (copy != null) {
+                flight.complete(new SharedResponse(status, headers, copy.toByteArray()));
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.concurrency.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the requests in flight to each route with an {@link AdaptiveConcurrencyLimit},
+ * so that a surge is turned away with a 503 and Retry-After while the service behind the route still
+ * answers in time, instead of queueing until everything times out. The per-user rate
+ * limits cannot do this: each user can be within theirs while all of them together are
+ * more than the service can take.
+ * <p>
+ * Requests have a priority. Critical ones (checkout, payment webhooks) may fill the
+ * whole limit; the others only part of it, browsing the smallest part, so they are shed
+ * first. Event streams and upgrades stay open for minutes and are not counted.
+ */
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    enum Priority {
+        CRITICAL, NORMAL, BROWSE
+    }
+
+    private final Map<String, RouteLimit> limits = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Duration latencyThreshold;
+    private final double backoffRatio;
+    private final Duration retryAfter;
+    private final List<Rule> critical;
+    private final List<Rule> browse;
+    private final double normalShare;
+    private final double browseShare;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${application.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${application.concurrency-limit.initial-limit:100}") int initialLimit,
+                                  @Value("${application.concurrency-limit.min-limit:20}") int minLimit,
+                                  @Value("${application.concurrency-limit.max-limit:1000}") int maxLimit,
+                                  @Value("${application.concurrency-limit.latency-threshold:1s}") Duration latencyThreshold,
+                                  @Value("${application.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${application.concurrency-limit.retry-after:1s}") Duration retryAfter,
+                                  @Value("${application.concurrency-limit.critical:}") List<String> critical,
+                                  @Value("${application.concurrency-limit.browse:}") List<String> browse,
+                                  @Value("${application.concurrency-limit.normal-share:0.85}") double normalShare,
+                                  @Value("${application.concurrency-limit.browse-share:0.6}") double browseShare) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThreshold = latencyThreshold;
+        this.backoffRatio = backoffRatio;
+        this.retryAfter = retryAfter;
+        this.critical = critical.stream().map(Rule::parse).toList();
+        this.browse = browse.stream().map(Rule::parse).toList();
+        this.normalShare = normalShare;
+        this.browseShare = browseShare;
+    }
+
+    // After RequestCoalescingFilter, so that only requests that go upstream are counted
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 2;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!enabled || route == null || longLived(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        RouteLimit limit = limits.computeIfAbsent(route.getId(), RouteLimit::new);
+        Priority priority = priorityOf(exchange.getRequest());
+        if (!limit.tryAcquire(priority)) {
+            limit.shed(priority);
+            // Written here like the rate limiter's 429: no error body to render, and
+            // the error handler would drop Retry-After
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+            return response.setComplete();
+        }
+        // Latency is sampled when the upstream response starts, so a client slow to
+        // download a large body does not count against the service
+        long start = System.nanoTime();
+        AtomicLong latency = new AtomicLong(-1);
+        exchange.getResponse().beforeCommit(() -> {
+            latency.compareAndSet(-1, System.nanoTime() - start);
+            return Mono.empty();
+        });
+        // doFinally runs once, so a cancel racing or following the completion cannot
+        // give the slot back twice
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    switch (signal) {
+                        case ON_COMPLETE -> limit.release(latency(latency, start),
+                                overloaded(exchange.getResponse().getStatusCode()));
+                        // connection refused, response timeout: the service is not keeping up
+                        case ON_ERROR -> limit.release(latency(latency, start), true);
+                        // the client went away, which says nothing about the service
+                        default -> limit.releaseWithoutSample();
+                    }
+                });
+    }
+
+    private static long latency(AtomicLong committed, long start) {
+        long latency = committed.get();
+        return latency >= 0 ? latency : System.nanoTime() - start;
+    }
+
+    private static boolean longLived(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return headers.containsKey(HttpHeaders.UPGRADE) || headers.getOrEmpty(HttpHeaders.ACCEPT).stream()
+                .anyMatch(accept -> accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    private Priority priorityOf(ServerHttpRequest request) {
+        if (critical.stream().anyMatch(rule -> rule.matches(request))) {
+            return Priority.CRITICAL;
+        }
+        return browse.stream().anyMatch(rule -> rule.matches(request)) ? Priority.BROWSE : Priority.NORMAL;
+    }
+
+    private static boolean overloaded(HttpStatusCode status) {
+        return status != null && (status.value() == HttpStatus.BAD_GATEWAY.value()
+                || status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    private double share(Priority priority) {
+        return switch (priority) {
+            case CRITICAL -> 1.0;
+            case NORMAL -> normalShare;
+            case BROWSE -> browseShare;
+        };
+    }
+
+    /** "POST /api/orders": a method and a path pattern. */
+    private record Rule(HttpMethod method, PathPattern path) {
+
+        static Rule parse(String rule) {
+            String[] parts = rule.trim().split("\\s+", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected \"METHOD /path\", got \"" + rule + "\"");
+            }
+            return new Rule(HttpMethod.valueOf(parts[0].toUpperCase(Locale.ROOT)),
+                    PathPatternParser.defaultInstance.parse(parts[1]));
+        }
+
+        boolean matches(ServerHttpRequest request) {
+            return method.equals(request.getMethod()) && path.matches(request.getPath().pathWithinApplication());
+        }
+    }
+
+    private final class RouteLimit {
+
+        private final String routeId;
+        private final AdaptiveConcurrencyLimit limit;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        RouteLimit(String routeId) {
+            this.routeId = routeId;
+            this.limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                    latencyThreshold.toNanos(), backoffRatio);
+            Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit of the route")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.inflight", inFlight, AtomicInteger::get)
+                    .description("Requests to the route currently in flight")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        boolean tryAcquire(Priority priority) {
+            int allowed = Math.max(1, (int) (limit.getLimit() * share(priority)));
+            while (true) {
+                int current = inFlight.get();
+                if (current >= allowed) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(long latencyNanos, boolean dropped) {
+            limit.onSample(latencyNanos, inFlight.getAndDecrement(), dropped);
+        }
+
+        void releaseWithoutSample() {
+            inFlight.decrementAndGet();
+        }
+
+        void shed(Priority priority) {
+            Counter.builder("gateway.concurrency.shed")
+                    .description("Requests turned away with 503 because the route was at its limit")
+                    .tag("route", routeId)
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
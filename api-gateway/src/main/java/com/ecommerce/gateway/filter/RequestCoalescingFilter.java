@@ -0,0 +1,292 @@
+package com.ecommerce.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces identical GETs that are in flight at the same time, such as a product page
+ * opened by thousands of clients at once during a launch. The first request goes
+ * upstream; the ones that arrive before its response is complete wait for it and get a
+ * copy. {@link CoalescingCaptureFilter} copies the response as it streams out to the
+ * first client.
+ * <p>
+ * Requests are identical when they go to the same upstream URL with the same
+ * {@code key-headers}, which include the credentials, so a response is never shared
+ * between users. The filter runs after the route filters, so every request is still
+ * counted by the rate limiter. Waiters go upstream themselves when the response turns
+ * out not to be shareable: {@code Cache-Control: no-store}, {@code private} without
+ * credentials in the key, {@code Set-Cookie}, a {@code Vary} on a header that differs,
+ * a streamed body or one larger than {@code max-body-size}. A request that asks for a
+ * fresh response with {@code Cache-Control: no-cache} is not coalesced, nor is a
+ * conditional request whose validators are not among the {@code key-headers}.
+ */
+@Component
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    static final String FLIGHT_ATTR = RequestCoalescingFilter.class.getName() + ".flight";
+
+    private static final Set<String> CREDENTIALS = Set.of("authorization", "cookie");
+
+    // A 304 or 412 answers only the validators it was asked with
+    private static final Set<String> CONDITIONALS =
+            Set.of("if-none-match", "if-modified-since", "if-match", "if-unmodified-since", "if-range");
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Set<String> routes;
+    private final List<String> keyHeaders;
+    private final int maxWaiters;
+    private final DataSize maxBodySize;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry,
+                                   @Value("${application.coalescing.enabled:true}") boolean enabled,
+                                   @Value("${application.coalescing.routes:}") Set<String> routes,
+                                   @Value("${application.coalescing.key-headers:Authorization,Cookie,Accept,Accept-Encoding,Accept-Language,If-None-Match,If-Modified-Since}") List<String> keyHeaders,
+                                   @Value("${application.coalescing.max-waiters:1000}") int maxWaiters,
+                                   @Value("${application.coalescing.max-body-size:512KB}") DataSize maxBodySize) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.routes = routes;
+        this.keyHeaders = keyHeaders.stream().map(header -> header.trim().toLowerCase(Locale.ROOT)).toList();
+        this.maxWaiters = maxWaiters;
+        this.maxBodySize = maxBodySize;
+        Gauge.builder("gateway.coalescing.flights", flights, Map::size)
+                .description("Upstream GETs in flight that identical requests can join")
+                .register(meterRegistry);
+    }
+
+    // After RouteToRequestUrlFilter has resolved the upstream URL, before the proxy call
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (!enabled || route == null || url == null || !routes.contains(route.getId()) || !coalescable(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        String routeId = route.getId();
+        String key = key(routeId, url, exchange.getRequest().getHeaders());
+
+        Flight flight = new Flight(key, routeId, exchange.getRequest().getHeaders());
+        Flight current = flights.putIfAbsent(key, flight);
+        if (current == null) {
+            count(routeId, "leader");
+            exchange.getAttributes().put(FLIGHT_ATTR, flight);
+            return chain.filter(exchange)
+                    .doOnError(e -> flight.abandon());
+        }
+        if (!current.join()) {
+            if (current.closed()) {
+                // its response was published in the meantime
+                return filter(exchange, chain);
+            }
+            count(routeId, "bypassed");
+            return chain.filter(exchange);
+        }
+        // Empty when the leader failed or was cancelled before its response was complete
+        return current.result()
+                .flatMap(shared -> {
+                    if (shared.isEmpty()
+                            || !shared.get().sharableWith(exchange.getRequest().getHeaders(), current.leaderHeaders, keyHeaders)) {
+                        count(routeId, "fallback");
+                        return chain.filter(exchange);
+                    }
+                    count(routeId, "joined");
+                    return write(exchange.getResponse(), shared.get());
+                });
+    }
+
+    private boolean coalescable(ServerHttpRequest request) {
+        if (request.getMethod() != HttpMethod.GET) {
+            return false;
+        }
+        HttpHeaders headers = request.getHeaders();
+        String cacheControl = Objects.toString(headers.getCacheControl(), "").toLowerCase(Locale.ROOT);
+        if (cacheControl.contains("no-cache") || cacheControl.contains("no-store")) {
+            return false;
+        }
+        if (headers.containsKey(HttpHeaders.PRAGMA) || headers.containsKey(HttpHeaders.UPGRADE)) {
+            return false;
+        }
+        if (CONDITIONALS.stream().anyMatch(header -> headers.containsKey(header) && !keyHeaders.contains(header))) {
+            return false;
+        }
+        return headers.getOrEmpty(HttpHeaders.ACCEPT).stream()
+                .noneMatch(accept -> accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    private String key(String routeId, URI url, HttpHeaders headers) {
+        StringBuilder key = new StringBuilder(routeId).append(' ').append(url);
+        for (String header : keyHeaders) {
+            List<String> values = headers.get(header);
+            key.append('\n').append(header).append(':');
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    // The waiter's own CORS, rate limit and security headers stay; the rest comes from the leader.
+    // Vary is added to, as CORS sets it too.
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        shared.headers().forEach((name, values) -> {
+            if (HttpHeaders.VARY.equalsIgnoreCase(name)) {
+                values.stream()
+                        .filter(value -> !response.getHeaders().getOrEmpty(name).contains(value))
+                        .forEach(value -> response.getHeaders().add(name, value));
+            } else if (!response.getHeaders().containsKey(name)) {
+                response.getHeaders().put(name, values);
+            }
+        });
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body())));
+    }
+
+    private void count(String routeId, String outcome) {
+        Counter.builder("gateway.coalescing.requests")
+                .description("Coalescable GETs: leader went upstream, joined got the leader's response, "
+                        + "fallback and bypassed went upstream on their own")
+                .tag("route", routeId)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * A response as {@link CoalescingCaptureFilter} copied it on its way to the leader's
+     * client. Headers are those the upstream sent, after the gateway's header filters.
+     */
+    record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+        boolean sharableWith(HttpHeaders request, HttpHeaders leaderRequest, List<String> keyHeaders) {
+            for (String vary : headers.getVary()) {
+                String name = vary.trim().toLowerCase(Locale.ROOT);
+                if (name.equals("*")) {
+                    return false;
+                }
+                if (!keyHeaders.contains(name) && !Objects.equals(request.get(name), leaderRequest.get(name))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static boolean sharable(HttpHeaders response, boolean credentialsInKey) {
+            String cacheControl = response.getCacheControl();
+            if (cacheControl != null) {
+                String directives = cacheControl.toLowerCase(Locale.ROOT);
+                if (directives.contains("no-store") || (directives.contains("private") && !credentialsInKey)) {
+                    return false;
+                }
+            }
+            return !response.containsKey(HttpHeaders.SET_COOKIE);
+        }
+    }
+
+    /** One upstream GET and the identical requests waiting for its response. */
+    final class Flight {
+
+        private final String key;
+        private final String routeId;
+        private final HttpHeaders leaderHeaders;
+        private final Sinks.One<Optional<SharedResponse>> result = Sinks.one();
+        // -1 once the response is published; late arrivals start a new flight
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        Flight(String key, String routeId, HttpHeaders leaderHeaders) {
+            this.key = key;
+            this.routeId = routeId;
+            this.leaderHeaders = leaderHeaders;
+        }
+
+        long maxBodySize() {
+            return maxBodySize.toBytes();
+        }
+
+        boolean credentialsInKey() {
+            return keyHeaders.stream().anyMatch(header -> CREDENTIALS.contains(header) && leaderHeaders.containsKey(header));
+        }
+
+        boolean join() {
+            while (true) {
+                int count = waiters.get();
+                if (count < 0 || count >= maxWaiters) {
+                    return false;
+                }
+                if (waiters.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean closed() {
+            return waiters.get() < 0;
+        }
+
+        Mono<Optional<SharedResponse>> result() {
+            return result.asMono();
+        }
+
+        void complete(SharedResponse response) {
+            if (close()) {
+                result.tryEmitValue(Optional.of(response));
+            }
+        }
+
+        void abandon() {
+            if (close()) {
+                result.tryEmitValue(Optional.empty());
+            }
+        }
+
+        private boolean close() {
+            flights.remove(key, this);
+            int joined = waiters.getAndSet(-1);
+            if (joined < 0) {
+                return false;
+            }
+            DistributionSummary.builder("gateway.coalescing.waiters")
+                    .description("Requests that joined one upstream GET")
+                    .tag("route", routeId)
+                    .register(meterRegistry)
+                    .record(joined);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecommerce.gateway.service;
+
+import com.ecommerce.gateway.dto.OrderDetails;
+import com.ecommerce.gateway.dto.OrderItemResponse;
+import com.ecommerce.gateway.dto.OrderResponse;
+import com.ecommerce.gateway.dto.ProductSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds order pages from order-service and product-service, so that a client makes
+ * one round trip instead of one per product. The order comes first, as it names the
+ * products; these are then read in batches of {@code product-batch-size}, all at once.
+ * <p>
+ * Each service has a timeout of its own. Without the order there is nothing to show,
+ * so its failure is the response's. Products are only decoration: when product-service
+ * fails or is slower than {@code product-timeout}, the order is returned without them
+ * and marked partial.
+ */
+@Slf4j
+@Service
+public class OrderDetailsService {
+
+    // Requests here are counted against the route the client would otherwise have called
+    private static final String ORDER_ROUTE = "order-service";
+
+    private final WebClient orderClient;
+    private final WebClient productClient;
+    private final RedisRateLimiter rateLimiter;
+    private final Counter partial;
+    private final Duration orderTimeout;
+    private final Duration productTimeout;
+    private final int productBatchSize;
+
+    public OrderDetailsService(WebClient.Builder builder,
+                               RedisRateLimiter rateLimiter,
+                               MeterRegistry meterRegistry,
+                               @Value("${application.order-details.order-service-url}") String orderServiceUrl,
+                               @Value("${application.order-details.product-service-url}") String productServiceUrl,
+                               @Value("${application.order-details.order-timeout:3s}") Duration orderTimeout,
+                               @Value("${application.order-details.product-timeout:800ms}") Duration productTimeout,
+                               @Value("${application.order-details.product-batch-size:100}") int productBatchSize) {
+        this.orderClient = builder.clone()
+                .baseUrl(orderServiceUrl)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+        this.productClient = builder.clone()
+                .baseUrl(productServiceUrl)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+        this.rateLimiter = rateLimiter;
+        this.partial = Counter.builder("gateway.order-details.partial")
+                .description("Order details returned without their products because product-service failed")
+                .register(meterRegistry);
+        this.orderTimeout = orderTimeout;
+        this.productTimeout = productTimeout;
+        this.productBatchSize = productBatchSize;
+    }
+
+    /** One order; order-service decides whether the caller may see it. */
+    public Mono<OrderDetails> getOrder(Long id, String user, String authorization) {
+        Mono<OrderResponse> order = orderClient.get()
+                .uri("/api/orders/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .retrieve()
+                .bodyToMono(OrderResponse.class)
+                .timeout(orderTimeout)
+                .onErrorMap(OrderDetailsService::orderServiceError);
+
+        return allowed(user)
+                .then(order)
+                .flatMap(found -> products(List.of(found))
+                        .map(products -> details(found, products)));
+    }
+
+    public Mono<List<OrderDetails>> getMyOrders(String user, String authorization) {
+        Mono<List<OrderResponse>> orders = orderClient.get()
+                .uri("/api/orders/my-orders")
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .retrieve()
+                .bodyToFlux(OrderResponse.class)
+                .collectList()
+                .timeout(orderTimeout)
+                .onErrorMap(OrderDetailsService::orderServiceError);
+
+        return allowed(user)
+                .then(orders)
+                .flatMap(found -> products(found)
+                        .map(products -> found.stream().map(order -> details(order, products)).toList()));
+    }
+
+    private Mono<Void> allowed(String user) {
+        return rateLimiter.isAllowed(ORDER_ROUTE, user)
+                .flatMap(response -> response.isAllowed()
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS)));
+    }
+
+    // Empty when product-service could not be read in time
+    private Mono<Optional<Map<Long, ProductSummary>>> products(List<OrderResponse> orders) {
+        Set<Long> ids = orders.stream()
+                .flatMap(order -> order.items() != null ? order.items().stream() : Stream.empty())
+                .map(OrderItemResponse::productId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.isEmpty()) {
+            return Mono.just(Optional.of(Map.of()));
+        }
+        return Flux.fromIterable(batches(ids))
+                .flatMap(batch -> productClient.get()
+                        .uri(uri -> uri.path("/api/products/batch")
+                                .queryParam("ids", batch.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                                .build())
+                        .retrieve()
+                        .bodyToFlux(ProductSummary.class))
+                .collectMap(ProductSummary::id)
+                .timeout(productTimeout)
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    log.warn("Order details without products, product-service failed: {}", e.toString());
+                    partial.increment();
+                    return Mono.just(Optional.empty());
+                });
+    }
+
+    private List<List<Long>> batches(Set<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        List<Long> batch = new ArrayList<>(productBatchSize);
+        for (Long id : ids) {
+            batch.add(id);
+            if (batch.size() == productBatchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(productBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static OrderDetails details(OrderResponse order, Optional<Map<Long, ProductSummary>> products) {
+        List<OrderDetails.Item> items = order.items() == null ? List.of() : order.items().stream()
+                .map(item -> new OrderDetails.Item(item.productId(), item.quantity(), item.priceAtPurchase(),
+                        item.itemSubtotal(), products.map(found -> found.get(item.productId())).orElse(null)))
+                .toList();
+        return new OrderDetails(order.orderId(), order.userEmail(), items, order.totalAmount(), order.status(),
+                order.orderDate(), order.checkoutUrl(), products.isEmpty());
+    }
+
+    // Client errors are passed on as order-service gave them; anything else is the gateway's to report
+    private static Throwable orderServiceError(Throwable e) {
+        if (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+            return new ResponseStatusException(response.getStatusCode());
+        }
+        if (e instanceof TimeoutException) {
+            return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "order-service did not answer in time");
+        }
+        return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "order-service is unavailable", e);
+    }
+}
@@ -0,0 +1,142 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.filter.RequestCoalescingFilter.Flight;
+import com.ecommerce.gateway.filter.RequestCoalescingFilter.SharedResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalescingCaptureFilterTest {
+
+    private final RequestCoalescingFilter coalescing = new RequestCoalescingFilter(new SimpleMeterRegistry(), true,
+            Set.of("product-service"), List.of("Authorization", "Accept"), 1000, DataSize.ofBytes(16));
+    private final CoalescingCaptureFilter filter = new CoalescingCaptureFilter();
+
+    @Test
+    void copiesTheBodyWhileTheLeaderReceivesIt() {
+        MockServerWebExchange exchange = leader(MockServerHttpRequest.get("/api/products/1"));
+
+        filter.filter(exchange, upstream(headers -> headers.set(HttpHeaders.CONTENT_TYPE, "application/json"),
+                "{\"id\":", "1}")).block();
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1}");
+        SharedResponse shared = published(exchange).orElseThrow();
+        assertThat(new String(shared.body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}");
+        assertThat(shared.status()).isEqualTo(HttpStatus.OK);
+        assertThat(shared.headers().getFirst(HttpHeaders.CONTENT_TYPE)).isEqualTo("application/json");
+    }
+
+    @Test
+    void bodyOverTheCapIsNotSharedButStillSent() {
+        MockServerWebExchange exchange = leader(MockServerHttpRequest.get("/api/products"));
+
+        filter.filter(exchange, upstream(headers -> { }, "0123456789", "0123456789")).block();
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("01234567890123456789");
+        assertThat(published(exchange)).isEmpty();
+    }
+
+    @Test
+    void declaredLengthOverTheCapIsNotCopied() {
+        MockServerWebExchange exchange = leader(MockServerHttpRequest.get("/api/products"));
+
+        filter.filter(exchange, upstream(headers -> headers.setContentLength(1024), "short")).block();
+
+        assertThat(published(exchange)).isEmpty();
+    }
+
+    @Test
+    void privateResponseIsSharedOnlyWhenTheLeaderSentCredentials() {
+        MockServerWebExchange anonymous = leader(MockServerHttpRequest.get("/api/products/1"));
+        filter.filter(anonymous, upstream(headers -> headers.setCacheControl("private"), "x")).block();
+        assertThat(published(anonymous)).isEmpty();
+
+        MockServerWebExchange user = leader(MockServerHttpRequest.get("/api/products/1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token"));
+        filter.filter(user, upstream(headers -> headers.setCacheControl("private"), "x")).block();
+        assertThat(published(user)).isPresent();
+    }
+
+    @Test
+    void setCookieIsNeverShared() {
+        MockServerWebExchange exchange = leader(MockServerHttpRequest.get("/api/products/1"));
+
+        filter.filter(exchange, upstream(headers -> headers.add(HttpHeaders.SET_COOKIE, "session=1"), "x")).block();
+
+        assertThat(published(exchange)).isEmpty();
+    }
+
+    @Test
+    void cancelledLeaderReleasesTheWaiters() {
+        MockServerWebExchange exchange = leader(MockServerHttpRequest.get("/api/products/1"));
+        Flight flight = exchange.getAttribute(RequestCoalescingFilter.FLIGHT_ATTR);
+
+        Disposable leader = filter.filter(exchange, e -> Mono.never()).subscribe();
+        assertThat(flight.closed()).isFalse();
+        leader.dispose();
+
+        assertThat(flight.closed()).isTrue();
+        assertThat(published(exchange)).isEmpty();
+    }
+
+    @Test
+    void streamedResponseIsNotShared() {
+        MockServerWebExchange exchange = leader(MockServerHttpRequest.get("/api/products/1"));
+
+        filter.filter(exchange, e -> e.getResponse().writeAndFlushWith(Flux.just(Flux.just(buffer("a"))))).block();
+
+        assertThat(published(exchange)).isEmpty();
+    }
+
+    @Test
+    void requestsWithoutAFlightPassThrough() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products/1").build());
+
+        filter.filter(exchange, upstream(headers -> { }, "x")).block();
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("x");
+    }
+
+    // Marks the exchange as the leader of a flight, as RequestCoalescingFilter does
+    private MockServerWebExchange leader(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request.build());
+        Flight flight = coalescing.new Flight("key", "product-service", exchange.getRequest().getHeaders());
+        exchange.getAttributes().put(RequestCoalescingFilter.FLIGHT_ATTR, flight);
+        return exchange;
+    }
+
+    // Writes the upstream response the way NettyWriteResponseFilter does, after the headers are set
+    private static GatewayFilterChain upstream(Consumer<HttpHeaders> headers, String... chunks) {
+        return exchange -> {
+            headers.accept(exchange.getResponse().getHeaders());
+            return exchange.getResponse().writeWith(Flux.fromArray(chunks).map(CoalescingCaptureFilterTest::buffer));
+        };
+    }
+
+    private static DataBuffer buffer(String chunk) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Optional<SharedResponse> published(MockServerWebExchange exchange) {
+        Flight flight = exchange.getAttribute(RequestCoalescingFilter.FLIGHT_ATTR);
+        return flight.result().block();
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // A limit of 10: browse gets 6 slots (0.6), normal 8 (0.85), critical all 10
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(meterRegistry, true,
+            10, 1, 100, Duration.ofSeconds(1), 0.9, Duration.ofSeconds(2),
+            List.of("POST /api/orders"), List.of("GET /api/products/**"), 0.85, 0.6);
+
+    private final Route route = Route.async()
+            .id("order-service")
+            .uri("http://localhost")
+            .predicate(exchange -> true)
+            .build();
+
+    @Test
+    void browseIsShedFirstThenNormalThenCritical() {
+        assertThat(admitted(MockServerHttpRequest.get("/api/products/1"), 20)).isEqualTo(6);
+        assertThat(admitted(MockServerHttpRequest.get("/api/orders/1"), 20)).isEqualTo(2);
+        assertThat(admitted(MockServerHttpRequest.post("/api/orders"), 20)).isEqualTo(2);
+
+        assertThat(shed("browse")).isEqualTo(14);
+        assertThat(shed("normal")).isEqualTo(18);
+        assertThat(shed("critical")).isEqualTo(18);
+    }
+
+    @Test
+    void shedRequestsGet503WithRetryAfter() {
+        admitted(MockServerHttpRequest.post("/api/orders"), 10);
+
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/orders"));
+        filter.filter(exchange, e -> Mono.never()).subscribe();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    @Test
+    void eventStreamsAreNotCounted() {
+        admitted(MockServerHttpRequest.post("/api/orders"), 10);
+
+        assertThat(admitted(MockServerHttpRequest.get("/api/orders/stream")
+                .header(HttpHeaders.ACCEPT, "text/event-stream"), 5)).isEqualTo(5);
+    }
+
+    @Test
+    void cancelRacingTheCompletionReleasesOnce() {
+        for (int i = 0; i < 3; i++) {
+            AtomicReference<Subscription> client = new AtomicReference<>();
+            // the client goes away while the upstream response completes
+            Mono<Void> upstream = Mono.from(response -> {
+                response.onSubscribe(Operators.emptySubscription());
+                client.get().cancel();
+                response.onComplete();
+            });
+            filter.filter(exchange(MockServerHttpRequest.post("/api/orders")), e -> upstream)
+                    .subscribe(null, null, null, subscription -> {
+                        client.set(subscription);
+                        subscription.request(1);
+                    });
+        }
+
+        assertThat(meterRegistry.get("gateway.concurrency.inflight").gauge().value()).isZero();
+        assertThat(admitted(MockServerHttpRequest.post("/api/orders"), 20)).isEqualTo(10);
+    }
+
+    // Sends requests that stay in flight and counts the ones let through
+    private int admitted(MockServerHttpRequest.BaseBuilder<?> request, int count) {
+        int admitted = 0;
+        for (int i = 0; i < count; i++) {
+            MockServerWebExchange exchange = exchange(request);
+            filter.filter(exchange, e -> Mono.never()).subscribe();
+            if (exchange.getResponse().getStatusCode() == null) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request.build());
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private double shed(String priority) {
+        return meterRegistry.counter("gateway.concurrency.shed", "route", "order-service", "priority", priority).count();
+    }
+}
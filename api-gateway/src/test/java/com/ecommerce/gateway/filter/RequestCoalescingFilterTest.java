@@ -0,0 +1,238 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.filter.RequestCoalescingFilter.Flight;
+import com.ecommerce.gateway.filter.RequestCoalescingFilter.SharedResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescingFilterTest {
+
+    private static final String URL = "http://product-service/api/products/1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescingFilter filter = filter(List.of("Authorization", "Accept", "If-None-Match"));
+
+    private final Route route = Route.async()
+            .id("product-service")
+            .uri("http://product-service")
+            .predicate(exchange -> true)
+            .build();
+
+    // Counts the requests that went upstream; they stay in flight until upstream completes
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final Sinks.Empty<Void> upstream = Sinks.empty();
+    private final GatewayFilterChain chain = exchange -> {
+        upstreamCalls.incrementAndGet();
+        return upstream.asMono();
+    };
+
+    @Test
+    void waitersGetTheLeadersResponse() {
+        MockServerWebExchange leader = exchange(MockServerHttpRequest.get(URL));
+        filter.filter(leader, chain).subscribe();
+        MockServerWebExchange waiter = exchange(MockServerHttpRequest.get(URL));
+        filter.filter(waiter, chain).subscribe();
+
+        flightOf(leader).complete(response(HttpStatus.OK, new HttpHeaders(), "{\"id\":1}"));
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(waiter.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(waiter.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1}");
+        assertThat(outcome("leader")).isEqualTo(1);
+        assertThat(outcome("joined")).isEqualTo(1);
+    }
+
+    @Test
+    void waitersGoUpstreamWhenTheLeaderAbandons() {
+        MockServerWebExchange leader = exchange(MockServerHttpRequest.get(URL));
+        filter.filter(leader, chain).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).subscribe();
+
+        flightOf(leader).abandon();
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(outcome("fallback")).isEqualTo(1);
+    }
+
+    @Test
+    void leaderErrorClosesItsFlight() {
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), exchange -> Mono.error(new IllegalStateException())).subscribe(
+                null, error -> { });
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).subscribe();
+
+        // the flight was closed by the error, so the second request leads a new one
+        assertThat(outcome("leader")).isEqualTo(2);
+    }
+
+    @Test
+    void requestsAfterThePublishStartANewFlight() {
+        MockServerWebExchange first = exchange(MockServerHttpRequest.get(URL));
+        filter.filter(first, chain).subscribe();
+        Flight flight = flightOf(first);
+        flight.complete(response(HttpStatus.OK, new HttpHeaders(), "a"));
+
+        assertThat(flight.join()).isFalse();
+        assertThat(flight.closed()).isTrue();
+        MockServerWebExchange second = exchange(MockServerHttpRequest.get(URL));
+        filter.filter(second, chain).subscribe();
+
+        assertThat(flightOf(second)).isNotSameAs(flight);
+        assertThat(outcome("leader")).isEqualTo(2);
+        assertThat(meterRegistry.get("gateway.coalescing.flights").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void waitersOverTheCapGoUpstreamOnTheirOwn() {
+        RequestCoalescingFilter capped = new RequestCoalescingFilter(meterRegistry, true, Set.of("product-service"),
+                List.of("Authorization"), 1, DataSize.ofKilobytes(1));
+        for (int i = 0; i < 3; i++) {
+            capped.filter(exchange(MockServerHttpRequest.get(URL)), chain).subscribe();
+        }
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(outcome("bypassed")).isEqualTo(1);
+    }
+
+    @Test
+    void differentCredentialsNeverShareAFlight() {
+        filter.filter(exchange(MockServerHttpRequest.get(URL).header(HttpHeaders.AUTHORIZATION, "Bearer a")), chain).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get(URL).header(HttpHeaders.AUTHORIZATION, "Bearer b")), chain).subscribe();
+
+        assertThat(outcome("leader")).isEqualTo(2);
+    }
+
+    @Test
+    void conditionalRequestsAreOnlyCoalescedOnTheirValidators() {
+        filter.filter(exchange(MockServerHttpRequest.get(URL).ifNoneMatch("\"v1\"")), chain).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get(URL).ifNoneMatch("\"v2\"")), chain).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).subscribe();
+        assertThat(outcome("leader")).isEqualTo(3);
+
+        // If-Modified-Since is not in this filter's key, so a 304 for one date could reach another
+        filter.filter(exchange(MockServerHttpRequest.get(URL).ifModifiedSince(1_000_000L)), chain).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get(URL).ifModifiedSince(1_000_000L)), chain).subscribe();
+        assertThat(outcome("leader")).isEqualTo(3);
+        assertThat(upstreamCalls).hasValue(5);
+    }
+
+    @Test
+    void requestsWithDifferentValidatorsDoNotShareA304() {
+        RequestCoalescingFilter defaults = filter(List.of(
+                "Authorization", "Cookie", "Accept", "Accept-Encoding", "Accept-Language", "If-None-Match", "If-Modified-Since"));
+        MockServerWebExchange leader = exchange(MockServerHttpRequest.get(URL).ifNoneMatch("\"v1\""));
+        defaults.filter(leader, chain).subscribe();
+        MockServerWebExchange other = exchange(MockServerHttpRequest.get(URL));
+        defaults.filter(other, chain).subscribe();
+
+        flightOf(leader).complete(response(HttpStatus.NOT_MODIFIED, new HttpHeaders(), ""));
+
+        assertThat(other.getResponse().getStatusCode()).isNull();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void noCacheAndNonGetRequestsAreNotCoalesced() {
+        filter.filter(exchange(MockServerHttpRequest.get(URL).header(HttpHeaders.CACHE_CONTROL, "no-cache")), chain).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.post(URL)), chain).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get(URL).header(HttpHeaders.ACCEPT, "text/event-stream")), chain).subscribe();
+
+        assertThat(upstreamCalls).hasValue(3);
+        assertThat(meterRegistry.find("gateway.coalescing.requests").counters()).isEmpty();
+    }
+
+    @Test
+    void varyOnAHeaderOutsideTheKeyMustMatchTheLeader() {
+        HttpHeaders vary = new HttpHeaders();
+        vary.setVary(List.of("Accept-Language"));
+        SharedResponse shared = response(HttpStatus.OK, vary, "x");
+        HttpHeaders leader = new HttpHeaders();
+        leader.set(HttpHeaders.ACCEPT_LANGUAGE, "en");
+        HttpHeaders same = new HttpHeaders();
+        same.set(HttpHeaders.ACCEPT_LANGUAGE, "en");
+        HttpHeaders other = new HttpHeaders();
+        other.set(HttpHeaders.ACCEPT_LANGUAGE, "de");
+
+        assertThat(shared.sharableWith(same, leader, List.of("accept"))).isTrue();
+        assertThat(shared.sharableWith(other, leader, List.of("accept"))).isFalse();
+        assertThat(shared.sharableWith(other, leader, List.of("accept-language"))).isTrue();
+
+        HttpHeaders any = new HttpHeaders();
+        any.setVary(List.of("*"));
+        assertThat(response(HttpStatus.OK, any, "x").sharableWith(same, leader, List.of())).isFalse();
+    }
+
+    @Test
+    void waiterWithADifferentVariantFallsBack() {
+        MockServerWebExchange leader = exchange(MockServerHttpRequest.get(URL).header(HttpHeaders.ACCEPT_LANGUAGE, "en"));
+        filter.filter(leader, chain).subscribe();
+        MockServerWebExchange waiter = exchange(MockServerHttpRequest.get(URL).header(HttpHeaders.ACCEPT_LANGUAGE, "de"));
+        filter.filter(waiter, chain).subscribe();
+
+        HttpHeaders vary = new HttpHeaders();
+        vary.setVary(List.of("Accept-Language"));
+        flightOf(leader).complete(response(HttpStatus.OK, vary, "english"));
+
+        assertThat(waiter.getResponse().getStatusCode()).isNull();
+        assertThat(outcome("fallback")).isEqualTo(1);
+    }
+
+    @Test
+    void privateResponsesAreSharedOnlyWithCredentialsInTheKey() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("private, max-age=60");
+        assertThat(SharedResponse.sharable(headers, false)).isFalse();
+        assertThat(SharedResponse.sharable(headers, true)).isTrue();
+
+        headers.setCacheControl("no-store");
+        assertThat(SharedResponse.sharable(headers, true)).isFalse();
+
+        HttpHeaders cookie = new HttpHeaders();
+        cookie.add(HttpHeaders.SET_COOKIE, "session=1");
+        assertThat(SharedResponse.sharable(cookie, true)).isFalse();
+    }
+
+    private RequestCoalescingFilter filter(List<String> keyHeaders) {
+        return new RequestCoalescingFilter(meterRegistry, true, Set.of("product-service"), keyHeaders,
+                1000, DataSize.ofKilobytes(1));
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request.build());
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, URI.create(URL));
+        return exchange;
+    }
+
+    private static Flight flightOf(MockServerWebExchange exchange) {
+        Flight flight = exchange.getAttribute(RequestCoalescingFilter.FLIGHT_ATTR);
+        assertThat(flight).isNotNull();
+        return flight;
+    }
+
+    private static SharedResponse response(HttpStatus status, HttpHeaders headers, String body) {
+        return new SharedResponse(status, headers, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private double outcome(String outcome) {
+        var counter = meterRegistry.find("gateway.coalescing.requests").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
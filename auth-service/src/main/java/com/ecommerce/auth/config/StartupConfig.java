@@ -0,0 +1,23 @@
+package com.ecommerce.auth.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+/**
+ * Beans that stay eager when the startup profile turns on lazy initialization.
+ * Migrations still run at boot. The profile skips Hibernate's schema validation,
+ * so an entity that no longer matches the schema fails on its first query.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                FlywayMigrationInitializer.class,
+                LocalContainerEntityManagerFactoryBean.class);
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecommerce.auth.config;
+
+import com.ecommerce.auth.dto.AuthResponse;
+import com.ecommerce.auth.dto.LoginRequest;
+import com.ecommerce.auth.dto.RegisterRequest;
+import com.ecommerce.auth.dto.UserResponse;
+import com.ecommerce.auth.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up before readiness (see application.warmup): the Hikari pool and the login
+ * lookup, the auth DTOs, JWT signing and parsing, and BCrypt.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String WARMUP_EMAIL = "warmup@example.invalid";
+
+    // BCrypt spends its time in one loop, so a few hashes are enough to get it compiled
+    private static final int PASSWORD_ROUNDS = 5;
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${application.warmup.timeout:10s}")
+    private Duration timeout;
+
+    @Value("${application.security.jwt.secret-key}")
+    private String secretKey;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Timer.Sample total = Timer.start(meterRegistry);
+        step("database", this::database);
+        step("json", this::json);
+        step("jwt", this::jwt);
+        step("password", this::password);
+        long elapsed = total.stop(meterRegistry.timer("warmup.duration", "step", "total"));
+        log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    // The first connection starts the Hikari pool, which then fills itself up to minimum-idle
+    private void database() {
+        userRepository.findByEmail(WARMUP_EMAIL);
+    }
+
+    private void json() throws Exception {
+        LoginRequest login = new LoginRequest(WARMUP_EMAIL, "warmup-password");
+        RegisterRequest register = new RegisterRequest(WARMUP_EMAIL, "warmup-password", "USER");
+        AuthResponse auth = AuthResponse.builder().token("header.claims.signature").email(WARMUP_EMAIL).role("USER").build();
+        UserResponse user = new UserResponse(1L, WARMUP_EMAIL, "USER", LocalDateTime.now());
+        for (int i = 0; i < iterations; i++) {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(login), LoginRequest.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(register), RegisterRequest.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(auth), AuthResponse.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(user), UserResponse.class);
+        }
+    }
+
+    // Not through JwtService, so that jwt.verification only counts real requests
+    private void jwt() {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        String token = Jwts.builder()
+                .claim("roles", List.of("ROLE_USER"))
+                .setSubject(WARMUP_EMAIL)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + timeout.toMillis()))
+                .signWith(key)
+                .compact();
+        for (int i = 0; i < iterations; i++) {
+            Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody()
+                    .getSubject();
+        }
+    }
+
+    // A plain encoder rather than the bean, which would count these in password.encoder
+    private void password() {
+        PasswordEncoder encoder = new BCryptPasswordEncoder();
+        String hash = encoder.encode("warmup-password");
+        for (int i = 0; i < PASSWORD_ROUNDS; i++) {
+            encoder.matches("warmup-password", hash);
+        }
+    }
+
+    private void step(String name, Step step) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            step.run();
+        } catch (Exception e) {
+            log.warn("Warm-up step {} failed: {}", name, e.toString());
+        }
+        sample.stop(meterRegistry.timer("warmup.duration", "step", name));
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,22 @@
+-- Baseline schema for auth-service. Written with IF NOT EXISTS so it also applies
+-- cleanly to databases that were previously managed by hibernate ddl-auto.
+
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    role       VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email ON users (email);
+
+CREATE TABLE IF NOT EXISTS audit_logs (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    action      VARCHAR(255) NOT NULL,
+    admin_email VARCHAR(255) NOT NULL,
+    user_email  VARCHAR(255),
+    details     VARCHAR(255),
+    timestamp   TIMESTAMP(6) NOT NULL
+);
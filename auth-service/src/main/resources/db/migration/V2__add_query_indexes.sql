@@ -0,0 +1,2 @@
+-- Audit history is always looked up per user, newest first.
+CREATE INDEX IF NOT EXISTS idx_audit_logs_user_email_timestamp ON audit_logs (user_email, timestamp DESC);
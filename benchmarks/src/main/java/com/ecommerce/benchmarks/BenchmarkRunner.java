@@ -0,0 +1,33 @@
+package com.ecommerce.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON so they can be kept per release
+ * and compared, e.g. with jmh.morethan.io.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar [include-regex] [-Dbenchmarks.result=path]
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : "com\\.ecommerce\\.benchmarks\\..*";
+        String result = System.getProperty("benchmarks.result", "benchmarks/target/jmh-result.json");
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .shouldFailOnError(true)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Shared helpers for wiring service classes without a Spring context.
+ */
+final class Fixtures {
+
+    /** 384-bit key, the size the services' HS384 tokens are signed with. */
+    static final String JWT_SECRET;
+
+    static {
+        byte[] key = new byte[48];
+        new Random(42).nextBytes(key);
+        JWT_SECRET = Base64.getEncoder().encodeToString(key);
+    }
+
+    private Fixtures() {
+    }
+
+    /** Sets a field normally filled by {@code @Value} injection. */
+    static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + fieldName + " on " + target.getClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.order.dto.OrderItemResponse;
+import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.product.dto.ProductResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response body serialization for the list endpoints (my-orders, product listing).
+ * The mapper is configured like Spring Boot's default one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<OrderResponse> orders;
+    private List<ProductResponse> products;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        writer = mapper.writer();
+
+        Random random = new Random(42);
+        orders = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<OrderItemResponse> items = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                long price = 100L + random.nextInt(100_000);
+                items.add(new OrderItemResponse((long) j, 2, price, price * 2));
+            }
+            orders.add(new OrderResponse((long) i, "bench@example.com", items,
+                    items.stream().mapToLong(OrderItemResponse::itemSubtotal).sum(),
+                    "CONFIRMED", LocalDateTime.now(), null));
+        }
+
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new ProductResponse((long) i, "Product " + i, "Benchmark product number " + i,
+                    100L + random.nextInt(100_000), random.nextInt(50), "category-" + (i % 20), true));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeOrders() throws JsonProcessingException {
+        return writer.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] serializeProducts() throws JsonProcessingException {
+        return writer.writeValueAsBytes(products);
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue in auth-service (every login) and token parsing in auth-service and
+ * product-service (every authenticated request).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private com.ecommerce.auth.security.JwtService authJwtService;
+    private com.ecommerce.product.security.JwtService productJwtService;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        authJwtService = new com.ecommerce.auth.security.JwtService(new SimpleMeterRegistry());
+        Fixtures.inject(authJwtService, "secretKey", Fixtures.JWT_SECRET);
+        productJwtService = new com.ecommerce.product.security.JwtService(new SimpleMeterRegistry());
+        Fixtures.inject(productJwtService, "secretKey", Fixtures.JWT_SECRET);
+
+        user = User.withUsername("bench@example.com")
+                .password("unused")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_USER")))
+                .build();
+        token = authJwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String authGenerateToken() {
+        return authJwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean authValidateToken() {
+        return authJwtService.isTokenValid(token, user);
+    }
+
+    @Benchmark
+    public String authExtractUsername() {
+        return authJwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean productValidateToken() {
+        return productJwtService.isTokenValid(token);
+    }
+
+    @Benchmark
+    public List<SimpleGrantedAuthority> productExtractRoles() {
+        return productJwtService.extractRoles(token);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JWT filters in front of every request to auth-service and product-service,
+ * with a valid bearer token. The auth filter's user lookup is stubbed, so its figure
+ * excludes the database round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private com.ecommerce.auth.security.JwtAuthenticationFilter authFilter;
+    private com.ecommerce.product.security.JwtAuthenticationFilter productFilter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        com.ecommerce.auth.security.JwtService authJwtService = new com.ecommerce.auth.security.JwtService(new SimpleMeterRegistry());
+        Fixtures.inject(authJwtService, "secretKey", Fixtures.JWT_SECRET);
+        com.ecommerce.product.security.JwtService productJwtService = new com.ecommerce.product.security.JwtService(new SimpleMeterRegistry());
+        Fixtures.inject(productJwtService, "secretKey", Fixtures.JWT_SECRET);
+
+        UserDetails user = User.withUsername("bench@example.com")
+                .password("unused")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_USER")))
+                .build();
+        authFilter = new com.ecommerce.auth.security.JwtAuthenticationFilter(authJwtService, username -> user);
+        productFilter = new com.ecommerce.product.security.JwtAuthenticationFilter(productJwtService);
+        authorization = "Bearer " + authJwtService.generateToken(user);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authFilter() throws Exception {
+        return filter(authFilter);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse productFilter() throws Exception {
+        return filter(productFilter);
+    }
+
+    private MockHttpServletResponse filter(Filter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return response;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order total calculation and entity-to-response mapping at growing item counts.
+ * OrderService.mapToResponse delegates to the private mapToResponseWithUrl.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderMappingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int itemCount;
+
+    private OrderService orderService;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        // mapToResponse touches none of the collaborators
+        orderService = new OrderService(null, null, null, null, null, null, null, null);
+
+        Random random = new Random(42);
+        order = Order.builder()
+                .id(1L)
+                .userEmail("bench@example.com")
+                .status(OrderStatus.PENDING)
+                .orderDate(LocalDateTime.now())
+                .build();
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = OrderItem.builder()
+                    .productId((long) i)
+                    .quantity(1 + random.nextInt(5))
+                    .priceAtPurchase(100L + random.nextInt(100_000))
+                    .build();
+            item.calculateItemSubtotal();
+            order.addOrderItem(item);
+        }
+        order.calculateTotal();
+    }
+
+    @Benchmark
+    public Long calculateTotal() {
+        order.calculateTotal();
+        return order.getTotalAmount();
+    }
+
+    @Benchmark
+    public OrderResponse mapToResponse() {
+        return orderService.mapToResponse(order);
+    }
+}
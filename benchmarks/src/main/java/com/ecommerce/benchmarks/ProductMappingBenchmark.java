@@ -0,0 +1,68 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductService.getProducts over large catalogues, with an in-memory repository: what
+ * the service adds on top of the query. Lists come back from the query as ProductSummary
+ * rows, so the per-row cost now sits in the database and Hibernate; ProductListBenchmark
+ * in load-harness measures that end to end.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductMappingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int productCount;
+
+    private ProductService productService;
+
+    @Setup
+    public void setUp() {
+        List<ProductSummary> products = new ArrayList<>(productCount);
+        Random random = new Random(42);
+        for (int i = 0; i < productCount; i++) {
+            products.add(new ProductSummary((long) i, "Product " + i, 100L + random.nextInt(100_000),
+                    random.nextInt(50), "category-" + (i % 20)));
+        }
+
+        ProductRepository repository = (ProductRepository) Proxy.newProxyInstance(
+                ProductRepository.class.getClassLoader(),
+                new Class<?>[]{ProductRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAllSummaries")) {
+                        return products;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        productService = new ProductService(repository, null, null, null);
+    }
+
+    @Benchmark
+    public List<ProductSummary> getProducts() {
+        return productService.getProducts(null);
+    }
+}
@@ -0,0 +1,163 @@
+package com.ecommerce.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.ecommerce.logging.LogSamplingFilter;
+import com.ecommerce.payment.entity.WebhookEvent;
+import com.ecommerce.payment.entity.WebhookEventStatus;
+import com.ecommerce.payment.repository.PaymentRepository;
+import com.ecommerce.payment.service.WebhookProcessor;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook throughput (WebhookProcessor.process for checkout.session.completed) under each
+ * logging profile, with the repository and order-service call stubbed out:
+ * <ul>
+ *     <li>{@code dev}: pattern layout written synchronously, as without the prod profile</li>
+ *     <li>{@code prod}: logstash JSON through the async appender</li>
+ *     <li>{@code prod-sampled}: as prod, with {@code com.ecommerce.payment} limited to 200 events/s</li>
+ * </ul>
+ * Events go to a discarding stream, so the numbers cover formatting and appender contention,
+ * not the cost of the terminal or log shipper.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class WebhookLoggingBenchmark {
+
+    @Param({"dev", "prod", "prod-sampled"})
+    private String profile;
+
+    private WebhookProcessor processor;
+    private WebhookEvent inboxEvent;
+
+    @Setup
+    public void setUp() throws IOException {
+        configureLogging();
+
+        PaymentRepository repository = (PaymentRepository) Proxy.newProxyInstance(
+                PaymentRepository.class.getClassLoader(),
+                new Class<?>[]{PaymentRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByStripeSessionId")) {
+                        return Optional.empty();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        WebClient.Builder webClientBuilder = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK).build()));
+
+        processor = new WebhookProcessor(repository, webClientBuilder, ObservationRegistry.NOOP);
+        Fixtures.inject(processor, "orderServiceUrl", "http://order-service");
+
+        try (InputStream in = getClass().getResourceAsStream("/checkout-session-completed.json")) {
+            inboxEvent = WebhookEvent.builder()
+                    .eventId("evt_1PbenchmarkCheckout0001")
+                    .eventType(WebhookProcessor.CHECKOUT_COMPLETED)
+                    .payload(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .status(WebhookEventStatus.PROCESSING)
+                    .attempts(1)
+                    .receivedAt(LocalDateTime.now())
+                    .build();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    @Benchmark
+    public void process() {
+        processor.process(inboxEvent).block();
+    }
+
+    private void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        Encoder<ILoggingEvent> encoder;
+        if (profile.equals("dev")) {
+            PatternLayoutEncoder pattern = new PatternLayoutEncoder();
+            pattern.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n");
+            encoder = pattern;
+        } else {
+            context.putObject(Environment.class.getName(), new StandardEnvironment());
+            StructuredLogEncoder json = new StructuredLogEncoder();
+            json.setFormat("logstash");
+            encoder = json;
+        }
+        encoder.setContext(context);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> console = new OutputStreamAppender<>();
+        console.setName("CONSOLE");
+        console.setContext(context);
+        console.setEncoder(encoder);
+        console.setOutputStream(OutputStream.nullOutputStream());
+        console.start();
+
+        Appender<ILoggingEvent> root = console;
+        if (!profile.equals("dev")) {
+            AsyncAppender async = new AsyncAppender();
+            async.setName("ASYNC_CONSOLE");
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(console);
+            async.start();
+            root = async;
+        }
+        if (profile.equals("prod-sampled")) {
+            LogSamplingFilter sampling = new LogSamplingFilter();
+            sampling.setRates("com.ecommerce.payment=200");
+            sampling.setContext(context);
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+
+        ch.qos.logback.classic.Logger rootLogger = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLogger.setLevel(Level.INFO);
+        rootLogger.addAppender(root);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.payment.gateway.StripeSignatures;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.net.Webhook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stripe webhook signature verification and event parsing, as done for every
+ * webhook received by payment-service.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookVerificationBenchmark {
+
+    private static final String SECRET = "whsec_benchmark";
+
+    private String payload;
+    private String signatureHeader;
+
+    @Setup
+    public void loadPayload() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/checkout-session-completed.json")) {
+            payload = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Re-signed per iteration so the timestamp stays inside Stripe's tolerance window
+    @Setup(Level.Iteration)
+    public void sign() {
+        signatureHeader = StripeSignatures.header(payload, SECRET, System.currentTimeMillis() / 1000);
+    }
+
+    @Benchmark
+    public Event constructEvent() throws SignatureVerificationException {
+        return Webhook.constructEvent(payload, signatureHeader, SECRET);
+    }
+}
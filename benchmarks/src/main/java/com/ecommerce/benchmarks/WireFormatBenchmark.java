@@ -0,0 +1,119 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.product.dto.ProductSummary;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The two ends of a product list response on the wire: the service writing it
+ * (serialize, then compress) and the caller reading it (inflate, then deserialize),
+ * for each content type and Content-Encoding the services negotiate. gzip runs at the
+ * JDK's default level like Tomcat, zstd at level 3 like Netty. The encoded size of
+ * each combination is printed once per fork.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<ProductSummary>> SUMMARIES = new TypeReference<>() {
+    };
+
+    @Param({"json", "smile"})
+    private String format;
+
+    @Param({"identity", "gzip", "zstd"})
+    private String encoding;
+
+    // 1 is the shape of order-service's product lookup, 1000 a category list
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private List<ProductSummary> products;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = "smile".equals(format)
+                ? SmileMapper.builder().findAndAddModules().build()
+                : JsonMapper.builder()
+                        .findAndAddModules()
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .build();
+
+        Random random = new Random(42);
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new ProductSummary((long) i, "Product " + i,
+                    100L + random.nextInt(100_000), random.nextInt(50), "category-" + (i % 20)));
+        }
+
+        encoded = encode();
+        System.out.printf("%n%s/%s/%d: %d bytes (%d uncompressed)%n", format, encoding, size,
+                encoded.length, mapper.writeValueAsBytes(products).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compressing(bytes)) {
+            mapper.writeValue(out, products);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<ProductSummary> decode() throws IOException {
+        try (InputStream in = inflating(new ByteArrayInputStream(encoded))) {
+            return mapper.readValue(in, SUMMARIES);
+        }
+    }
+
+    private OutputStream compressing(OutputStream out) throws IOException {
+        return switch (encoding) {
+            case "gzip" -> new GZIPOutputStream(out);
+            case "zstd" -> new ZstdOutputStream(out, 3);
+            default -> out;
+        };
+    }
+
+    private InputStream inflating(InputStream in) throws IOException {
+        return switch (encoding) {
+            case "gzip" -> new GZIPInputStream(in);
+            case "zstd" -> new ZstdInputStream(in);
+            default -> in;
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecommerce.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long THRESHOLD = 1_000_000_000L;
+    private static final long FAST = THRESHOLD / 10;
+
+    @Test
+    void growsByAboutOnePerFullWindowOfFastRequests() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, THRESHOLD, 0.9);
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(FAST, 10, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+        limit.onSample(FAST, 10, false);
+        assertThat(limit.getLimit()).isEqualTo(11);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyUnused() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, THRESHOLD, 0.9);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, 4, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void slowOrDroppedRequestsMultiplyByBackoffRatio() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 1, 1000, THRESHOLD, 0.5);
+
+        limit.onSample(THRESHOLD + 1, 100, false);
+        assertThat(limit.getLimit()).isEqualTo(50);
+
+        limit.onSample(FAST, 50, true);
+        assertThat(limit.getLimit()).isEqualTo(25);
+    }
+
+    @Test
+    void staysWithinMinAndMax() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(500, 20, 100, THRESHOLD, 0.5);
+        assertThat(limit.getLimit()).isEqualTo(100);
+
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(FAST, 100, false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(100);
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(FAST, 100, true);
+        }
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+}
@@ -0,0 +1,87 @@
+package com.ecommerce.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate-limits INFO and below per logger category, configured in sampled-console.xml as
+ * {@code category=eventsPerSecond} pairs, e.g. {@code com.ecommerce.order.service=50,org.springframework=10}.
+ * A logger belongs to the longest matching category; loggers outside every category are
+ * not sampled. WARN and ERROR always pass. Each category gets a fixed one-second window,
+ * and events over the budget are dropped before a LoggingEvent is even created.
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private static final Window UNSAMPLED = new Window(0);
+
+    private final List<Map.Entry<String, Integer>> categories = new ArrayList<>();
+    private final Map<String, Window> windowsByLogger = new ConcurrentHashMap<>();
+    private final Map<String, Window> windowsByCategory = new ConcurrentHashMap<>();
+
+    public void setRates(String rates) {
+        categories.clear();
+        for (String pair : rates.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                categories.add(Map.entry(pair.substring(0, separator).trim(),
+                        Integer.parseInt(pair.substring(separator + 1).trim())));
+            }
+        }
+        categories.sort(Comparator.comparingInt((Map.Entry<String, Integer> e) -> e.getKey().length()).reversed());
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() checks arrive with a null format and must not use up the budget
+        if (format == null || level.isGreaterOrEqual(Level.WARN) || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Window window = windowsByLogger.computeIfAbsent(logger.getName(), this::windowFor);
+        if (window == UNSAMPLED || window.tryAcquire(System.nanoTime())) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private Window windowFor(String loggerName) {
+        for (Map.Entry<String, Integer> category : categories) {
+            String name = category.getKey();
+            if (loggerName.equals(name) || loggerName.startsWith(name + ".")) {
+                return windowsByCategory.computeIfAbsent(name, n -> new Window(category.getValue()));
+            }
+        }
+        return UNSAMPLED;
+    }
+
+    private static final class Window {
+
+        private final int permits;
+        private final AtomicLong second = new AtomicLong(-1);
+        private final AtomicInteger count = new AtomicInteger();
+
+        Window(int permits) {
+            this.permits = permits;
+        }
+
+        // The reset races with concurrent increments; a few extra events at a boundary are fine
+        boolean tryAcquire(long nanos) {
+            long now = nanos / 1_000_000_000L;
+            long current = second.get();
+            if (current != now && second.compareAndSet(current, now)) {
+                count.set(0);
+            }
+            return count.incrementAndGet() <= permits;
+        }
+    }
+}
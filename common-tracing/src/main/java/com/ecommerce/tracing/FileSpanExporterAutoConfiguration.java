@@ -0,0 +1,92 @@
+package com.ecommerce.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes spans to {@code application.tracing.file} when {@code application.tracing.exporter}
+ * is {@code file}. Every service depends on this module; what differs between them, the
+ * file name and the sampling probability, is in their application.yml.
+ */
+@AutoConfiguration
+public class FileSpanExporterAutoConfiguration {
+
+    // Spring Boot hands every SpanExporter bean to the OpenTelemetry SDK, next to
+    // the OTLP exporter when management.otlp.tracing.endpoint is set.
+    @Bean
+    @ConditionalOnProperty(name = "application.tracing.exporter", havingValue = "file")
+    public SpanExporter fileSpanExporter(@Value("${application.tracing.file}") String file, ObjectMapper objectMapper) {
+        return new FileSpanExporter(Path.of(file), objectMapper);
+    }
+
+    /**
+     * Appends finished spans to a file as one JSON object per line.
+     */
+    static class FileSpanExporter implements SpanExporter {
+
+        private final Path file;
+        private final ObjectMapper objectMapper;
+
+        FileSpanExporter(Path file, ObjectMapper objectMapper) {
+            this.file = file;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (SpanData span : spans) {
+                    writer.write(objectMapper.writeValueAsString(toJson(span)));
+                    writer.newLine();
+                }
+                return CompletableResultCode.ofSuccess();
+            } catch (IOException e) {
+                return CompletableResultCode.ofFailure();
+            }
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        private Map<String, Object> toJson(SpanData span) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("traceId", span.getTraceId());
+            json.put("spanId", span.getSpanId());
+            json.put("parentSpanId", span.getParentSpanId());
+            json.put("name", span.getName());
+            json.put("kind", span.getKind().name());
+            json.put("startEpochNanos", span.getStartEpochNanos());
+            json.put("durationMicros", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000);
+            json.put("status", span.getStatus().getStatusCode().name());
+            json.put("attributes", attributes);
+            return json;
+        }
+    }
+}
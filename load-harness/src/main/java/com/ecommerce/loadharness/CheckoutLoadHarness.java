@@ -0,0 +1,201 @@
+package com.ecommerce.loadharness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives the full checkout flow through the gateway with a fixed number of virtual
+ * users: register, login, place order, pay on the checkout page (which makes the
+ * payment simulator send the webhook) and wait for the order to become CONFIRMED.
+ *
+ * Expects payment-service to run with PAYMENT_GATEWAY_PROVIDER=simulator. Product
+ * choices and quantities come from a seeded Random per virtual user, so two runs
+ * with the same settings issue the same sequence of orders.
+ */
+public class CheckoutLoadHarness {
+
+    private static final String PASSWORD = "harness-password";
+
+    private final HarnessConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final GatewayClient client;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    public CheckoutLoadHarness(HarnessConfig config) {
+        this.config = config;
+        this.client = new GatewayClient(config.gatewayUrl(), objectMapper);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new CheckoutLoadHarness(HarnessConfig.fromSystemProperties()).run();
+    }
+
+    public void run() throws Exception {
+        System.out.printf("Run %s: %d users x %d orders against %s%n",
+                runId, config.users(), config.iterations(), config.gatewayUrl());
+
+        List<Long> productIds = createProducts();
+
+        ExecutorService pool = Executors.newFixedThreadPool(config.users());
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int user = 0; user < config.users(); user++) {
+            int virtualUser = user;
+            futures.add(pool.submit(() -> runVirtualUser(virtualUser, productIds)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long wallClock = System.nanoTime() - start;
+        pool.shutdown();
+
+        report(wallClock);
+    }
+
+    private List<Long> createProducts() throws Exception {
+        String adminEmail = "harness-admin-" + runId + "@load.test";
+        client.post("/api/auth/register", Map.of("email", adminEmail, "password", PASSWORD, "role", "ROLE_ADMIN"), null)
+                .orThrow("Admin registration");
+        String adminToken = client.post("/api/auth/login", Map.of("email", adminEmail, "password", PASSWORD), null)
+                .orThrow("Admin login").json().get("token").asText();
+
+        String category = "load-" + runId;
+        for (int i = 0; i < config.products(); i++) {
+            Map<String, Object> product = new LinkedHashMap<>();
+            product.put("name", "Harness product " + i);
+            product.put("description", "Created by the checkout load harness");
+            product.put("price", 1000 + i * 100);
+            product.put("stockQuantity", 1_000_000);
+            product.put("category", category);
+            client.post("/api/products", product, adminToken).orThrow("Product creation");
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode product : client.get("/api/products?category=" + category, null).orThrow("Product lookup").json()) {
+            ids.add(product.get("id").asLong());
+        }
+        return ids;
+    }
+
+    private void runVirtualUser(int virtualUser, List<Long> productIds) {
+        Random random = new Random(config.seed() + virtualUser);
+        String email = "harness-" + runId + "-" + virtualUser + "@load.test";
+        try {
+            timed("register", () -> client.post("/api/auth/register",
+                    Map.of("email", email, "password", PASSWORD, "role", "ROLE_USER"), null).orThrow("Register"));
+            String token = timed("login", () -> client.post("/api/auth/login",
+                    Map.of("email", email, "password", PASSWORD), null).orThrow("Login").json().get("token").asText());
+
+            for (int i = 0; i < config.iterations(); i++) {
+                checkout(token, productIds, random);
+            }
+        } catch (Exception e) {
+            System.err.printf("Virtual user %d aborted: %s%n", virtualUser, e.getMessage());
+        }
+    }
+
+    private void checkout(String token, List<Long> productIds, Random random) {
+        long start = System.nanoTime();
+        try {
+            List<Map<String, Object>> items = new ArrayList<>();
+            int lines = 1 + random.nextInt(Math.min(3, productIds.size()));
+            for (int line = 0; line < lines; line++) {
+                items.add(Map.of(
+                        "productId", productIds.get((line + random.nextInt(productIds.size())) % productIds.size()),
+                        "quantity", 1 + random.nextInt(3)));
+            }
+
+            JsonNode order = timed("placeOrder", () -> withRetryOnThrottle(
+                    () -> client.post("/api/orders", Map.of("items", items), token)).orThrow("Place order").json());
+            long orderId = order.get("orderId").asLong();
+            String checkoutUrl = order.get("checkoutUrl").asText();
+
+            timed("payment", () -> client.get(checkoutUrl, null).orThrow("Simulated payment"));
+            timed("confirm", () -> awaitConfirmed(orderId, token));
+
+            recorder.record("endToEnd", System.nanoTime() - start);
+        } catch (Exception e) {
+            recorder.error("endToEnd");
+        }
+    }
+
+    private Void awaitConfirmed(long orderId, String token) throws Exception {
+        long deadline = System.nanoTime() + config.confirmTimeout().toNanos();
+        while (System.nanoTime() < deadline) {
+            GatewayClient.Response response = client.get("/api/orders/my-orders", token);
+            if (response.ok()) {
+                for (JsonNode order : response.json()) {
+                    if (order.get("orderId").asLong() == orderId) {
+                        String status = order.get("status").asText();
+                        if ("CONFIRMED".equals(status)) {
+                            return null;
+                        }
+                        if ("CANCELLED".equals(status)) {
+                            throw new IllegalStateException("Order " + orderId + " was cancelled");
+                        }
+                    }
+                }
+            }
+            // 429s from the gateway rate limiter are expected here; just poll again
+            Thread.sleep(config.pollInterval().toMillis());
+        }
+        throw new IllegalStateException("Order " + orderId + " not confirmed within " + config.confirmTimeout());
+    }
+
+    private GatewayClient.Response withRetryOnThrottle(Step<GatewayClient.Response> step) throws Exception {
+        long deadline = System.nanoTime() + config.confirmTimeout().toNanos();
+        GatewayClient.Response response = step.run();
+        while (response.status() == 429 && System.nanoTime() < deadline) {
+            Thread.sleep(config.pollInterval().toMillis());
+            response = step.run();
+        }
+        return response;
+    }
+
+    private <T> T timed(String stage, Step<T> step) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T result = step.run();
+            recorder.record(stage, System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            recorder.error(stage);
+            throw e;
+        }
+    }
+
+    private void report(long wallClockNanos) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("config", config);
+        report.put("wallClockSeconds", Math.round(wallClockNanos / 10_000_000.0) / 100.0);
+        report.put("stages", recorder.summary(wallClockNanos));
+
+        String json = objectMapper.writeValueAsString(report);
+        System.out.println(json);
+
+        File file = new File(config.reportFile());
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writeValue(file, report);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+
+    @FunctionalInterface
+    private interface Step<T> {
+        T run() throws Exception;
+    }
+}
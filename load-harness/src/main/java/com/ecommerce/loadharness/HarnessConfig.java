@@ -0,0 +1,32 @@
+package com.ecommerce.loadharness;
+
+import java.time.Duration;
+
+/**
+ * Harness settings, read from system properties so runs can be reproduced from the
+ * command line, e.g. {@code mvn -pl load-harness exec:java -Dharness.users=50}.
+ */
+public record HarnessConfig(
+        String gatewayUrl,
+        int users,
+        int iterations,
+        int products,
+        long seed,
+        Duration pollInterval,
+        Duration confirmTimeout,
+        String reportFile
+) {
+
+    public static HarnessConfig fromSystemProperties() {
+        return new HarnessConfig(
+                System.getProperty("harness.gateway-url", "http://localhost:8080"),
+                Integer.getInteger("harness.users", 10),
+                Integer.getInteger("harness.iterations", 5),
+                Integer.getInteger("harness.products", 5),
+                Long.getLong("harness.seed", 42L),
+                Duration.ofMillis(Long.getLong("harness.poll-interval-ms", 500L)),
+                Duration.ofSeconds(Long.getLong("harness.confirm-timeout-seconds", 60L)),
+                System.getProperty("harness.report", "target/load-harness-report.json")
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package com.ecommerce.loadharness;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects per-stage latencies and error counts from all virtual users and turns
+ * them into throughput and percentile figures.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> samples = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final List<String> stageOrder = Collections.synchronizedList(new ArrayList<>());
+
+    public void record(String stage, long nanos) {
+        stage(stage);
+        samples.get(stage).add(nanos);
+    }
+
+    public void error(String stage) {
+        stage(stage);
+        errors.get(stage).incrementAndGet();
+    }
+
+    public Map<String, Object> summary(long wallClockNanos) {
+        double seconds = wallClockNanos / 1_000_000_000.0;
+        Map<String, Object> stages = new LinkedHashMap<>();
+        synchronized (stageOrder) {
+            for (String stage : stageOrder) {
+                List<Long> sorted = new ArrayList<>(samples.get(stage));
+                Collections.sort(sorted);
+
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("count", sorted.size());
+                stats.put("errors", errors.get(stage).get());
+                stats.put("throughputPerSec", round(sorted.size() / seconds));
+                stats.put("p50Ms", percentileMillis(sorted, 50));
+                stats.put("p90Ms", percentileMillis(sorted, 90));
+                stats.put("p95Ms", percentileMillis(sorted, 95));
+                stats.put("p99Ms", percentileMillis(sorted, 99));
+                stats.put("maxMs", sorted.isEmpty() ? 0 : round(sorted.get(sorted.size() - 1) / 1_000_000.0));
+                stages.put(stage, stats);
+            }
+        }
+        return stages;
+    }
+
+    private void stage(String stage) {
+        errors.computeIfAbsent(stage, s -> new AtomicLong());
+        samples.computeIfAbsent(stage, s -> {
+            stageOrder.add(s);
+            return new ConcurrentLinkedQueue<>();
+        });
+    }
+
+    // Nearest-rank percentile
+    private static double percentileMillis(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return round(sorted.get(Math.max(0, rank - 1)) / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,272 @@
+package com.ecommerce.loadharness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Smoke test for the native images of api-gateway and order-service (or any other
+ * build of them): starts the binary against in-process stand-ins for the services
+ * it calls, exercises the main routes and reports startup time and RSS.
+ *
+ * <pre>
+ * mvn -pl load-harness exec:java -Dexec.mainClass=com.ecommerce.loadharness.NativeSmokeTest \
+ *     -Dsmoke.target=gateway -Dexec.args="../api-gateway/target/api-gateway"
+ * </pre>
+ *
+ * The order-service target still needs PostgreSQL; DB_URL, DB_USERNAME and DB_PASSWORD
+ * are passed through from the environment. Redis is optional for the gateway, whose
+ * rate limiter lets requests through when Redis is down.
+ */
+public class NativeSmokeTest {
+
+    private static final String INTERNAL_SECRET = "my-app-secret-123";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+    private final String target;
+    private final int port;
+    private final byte[] jwtKey;
+    private final List<String> command;
+    private final Map<String, Object> checks = new LinkedHashMap<>();
+
+    public NativeSmokeTest(String target, int port, List<String> command) {
+        this.target = target;
+        this.port = port;
+        this.command = command;
+        this.jwtKey = new byte[48];
+        new SecureRandom().nextBytes(jwtKey);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: NativeSmokeTest <command...> (with -Dsmoke.target=gateway|order)");
+            System.exit(2);
+        }
+        String target = System.getProperty("smoke.target", "gateway");
+        NativeSmokeTest test = new NativeSmokeTest(target,
+                Integer.getInteger("smoke.port", target.equals("order") ? 18083 : 18080),
+                Arrays.asList(args));
+        System.exit(test.run() ? 0 : 1);
+    }
+
+    public boolean run() throws Exception {
+        HttpServer standIns = startStandIns();
+        String standInUrl = "http://localhost:" + standIns.getAddress().getPort();
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File("target/smoke-" + target + ".log"));
+        new File("target").mkdirs();
+        Map<String, String> env = builder.environment();
+        env.put("PORT", Integer.toString(port));
+        env.put("JWT_SECRET_KEY", Base64.getEncoder().encodeToString(jwtKey));
+        env.put("AUTH_SERVICE_URL", standInUrl);
+        env.put("PRODUCT_SERVICE_URL", standInUrl);
+        env.put("ORDER_SERVICE_URL", standInUrl);
+        env.put("PAYMENT_SERVICE_URL", standInUrl);
+        env.putIfAbsent("REDIS_HOST", "localhost");
+        env.putIfAbsent("REDIS_PORT", "6379");
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        boolean passed = false;
+        try {
+            long startupMs = awaitFirstResponse(process, start);
+            if (target.equals("order")) {
+                passed = orderRoutes();
+            } else {
+                passed = gatewayRoutes();
+            }
+            report(startupMs, rssKb(process.pid()), passed);
+        } finally {
+            process.destroy();
+            process.waitFor();
+            standIns.stop(0);
+        }
+        return passed;
+    }
+
+    private boolean gatewayRoutes() throws Exception {
+        String user = token("smoke-user@smoke.test", "ROLE_USER");
+        return check("GET /api/products is routed", request("GET", "/api/products", null, null).statusCode() == 200)
+                & check("POST /api/auth/login is routed", request("POST", "/api/auth/login",
+                        "{\"email\":\"a@b.c\",\"password\":\"x\"}", null).statusCode() == 200)
+                & check("GET /api/orders/my-orders without a token is rejected",
+                        request("GET", "/api/orders/my-orders", null, null).statusCode() == 401)
+                & check("GET /api/orders/my-orders with a token is routed",
+                        request("GET", "/api/orders/my-orders", null, user).statusCode() == 200)
+                & check("PATCH /api/orders/1/confirm is denied at the edge",
+                        request("PATCH", "/api/orders/1/confirm", null, user).statusCode() == 403);
+    }
+
+    private boolean orderRoutes() throws Exception {
+        String user = token("smoke-user@smoke.test", "ROLE_USER");
+        String admin = token("smoke-admin@smoke.test", "ROLE_ADMIN");
+
+        HttpResponse<String> placed = request("POST", "/api/orders",
+                "{\"items\":[{\"productId\":1,\"quantity\":2}]}", user);
+        boolean ok = check("POST /api/orders", placed.statusCode() / 100 == 2);
+        if (!ok) {
+            return false;
+        }
+        JsonNode order = objectMapper.readTree(placed.body());
+        long orderId = order.get("orderId").asLong();
+        ok &= check("order carries the stand-in checkout URL", order.path("checkoutUrl").asText().contains("/checkout/"));
+
+        JsonNode mine = objectMapper.readTree(request("GET", "/api/orders/my-orders", null, user).body());
+        boolean listed = false;
+        for (JsonNode o : mine) {
+            listed |= o.get("orderId").asLong() == orderId;
+        }
+        ok &= check("GET /api/orders/my-orders lists the order", listed);
+
+        HttpRequest confirm = HttpRequest.newBuilder(url("/api/orders/" + orderId + "/confirm"))
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                .header("X-Internal-Secret", INTERNAL_SECRET)
+                .build();
+        ok &= check("PATCH /api/orders/{id}/confirm",
+                http.send(confirm, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2);
+
+        JsonNode confirmed = objectMapper.readTree(request("GET", "/api/orders/" + orderId, null, admin).body());
+        ok &= check("GET /api/orders/{id} shows CONFIRMED", "CONFIRMED".equals(confirmed.path("status").asText()));
+        return ok;
+    }
+
+    // Answers for product-service, payment-service and the gateway's downstream routes
+    private HttpServer startStandIns() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals("/api/payments/create-session")) {
+                respond(exchange, "text/plain", "http://localhost/checkout/smoke-session");
+            } else if (method.equals("GET") && path.matches("/api/products/\\d+")) {
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                respond(exchange, "application/json",
+                        "{\"id\":" + id + ",\"name\":\"Smoke product\",\"price\":1000,\"stockQuantity\":100}");
+            } else if (path.equals("/api/orders/my-orders") || path.equals("/api/products")) {
+                respond(exchange, "application/json", "[]");
+            } else {
+                respond(exchange, "application/json", "{}");
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private long awaitFirstResponse(Process process, long start) throws Exception {
+        long deadline = start + Duration.ofMinutes(3).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Process exited with " + process.exitValue()
+                        + "; see target/smoke-" + target + ".log");
+            }
+            try {
+                http.send(HttpRequest.newBuilder(url("/actuator/health")).build(), HttpResponse.BodyHandlers.discarding());
+                return (System.nanoTime() - start) / 1_000_000;
+            } catch (IOException e) {
+                Thread.sleep(20);
+            }
+        }
+        throw new IllegalStateException("No response on port " + port + " within 3 minutes");
+    }
+
+    private HttpResponse<String> request(String method, String path, String json, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(url(path))
+                .timeout(Duration.ofSeconds(30))
+                .method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        if (json != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI url(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private boolean check(String name, boolean passed) {
+        checks.put(name, passed ? "passed" : "FAILED");
+        System.out.printf("%-6s %s%n", passed ? "ok" : "FAILED", name);
+        return passed;
+    }
+
+    // Signed the way auth-service does it: HS384 with a "roles" claim
+    private String token(String email, String role) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        long now = System.currentTimeMillis() / 1000;
+        String header = encoder.encodeToString("{\"alg\":\"HS384\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String claims = encoder.encodeToString(objectMapper.writeValueAsBytes(Map.of(
+                "sub", email, "roles", List.of(role), "iat", now, "exp", now + 3600)));
+        Mac mac = Mac.getInstance("HmacSHA384");
+        mac.init(new SecretKeySpec(jwtKey, "HmacSHA384"));
+        byte[] signature = mac.doFinal((header + "." + claims).getBytes(StandardCharsets.UTF_8));
+        return header + "." + claims + "." + encoder.encodeToString(signature);
+    }
+
+    // Resident set size from /proc (Linux only); -1 elsewhere
+    private static long rssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/" + pid + "/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not on Linux
+        }
+        return -1;
+    }
+
+    private void report(long startupMs, long rssKb, boolean passed) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("target", target);
+        report.put("command", String.join(" ", command));
+        report.put("startupMs", startupMs);
+        report.put("rssMb", rssKb < 0 ? null : Math.round(rssKb / 102.4) / 10.0);
+        report.put("passed", passed);
+        report.put("checks", checks);
+
+        ObjectMapper writer = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(writer.writeValueAsString(report));
+        File file = new File(System.getProperty("smoke.report", "target/smoke-" + target + ".json"));
+        writer.writeValue(file, report);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+}
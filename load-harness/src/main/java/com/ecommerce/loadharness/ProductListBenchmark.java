@@ -0,0 +1,170 @@
+package com.ecommerce.loadharness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures GET /api/products?category=... for a large category: seeds {@code list.rows}
+ * products into one category straight into PostgreSQL, requests the list repeatedly and
+ * reports latency, response size and the bytes product-service allocated per request.
+ * Allocation is read from {@code jvm_gc_memory_allocated_bytes_total} on
+ * /actuator/prometheus, which moves at each young collection, so use enough iterations
+ * for many of them to happen. That endpoint needs an admin JWT, passed as {@code list.admin-token}.
+ *
+ * <pre>
+ * mvn -pl load-harness exec:java -Dexec.mainClass=com.ecommerce.loadharness.ProductListBenchmark \
+ *     -Dlist.url=http://localhost:8082 -Dlist.db-url=jdbc:postgresql://localhost:5432/ecommerce_db \
+ *     -Dlist.rows=10000 -Dlist.label=projection -Dlist.admin-token=$ADMIN_TOKEN
+ * </pre>
+ *
+ * The seeded products bypass the facet counts; rebuild them with
+ * POST /api/products/facets/rebuild afterwards.
+ */
+public class ProductListBenchmark {
+
+    private static final String CATEGORY = "list-bench";
+    private static final String ALLOCATED = "jvm_gc_memory_allocated_bytes_total";
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final String serviceUrl;
+    private final int rows;
+    private final int iterations;
+    private final String adminToken;
+
+    public ProductListBenchmark(String serviceUrl, int rows, int iterations, String adminToken) {
+        this.serviceUrl = serviceUrl;
+        this.rows = rows;
+        this.iterations = iterations;
+        this.adminToken = adminToken;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ProductListBenchmark benchmark = new ProductListBenchmark(
+                System.getProperty("list.url", "http://localhost:8082"),
+                Integer.getInteger("list.rows", 10_000),
+                Integer.getInteger("list.iterations", 200),
+                System.getProperty("list.admin-token", ""));
+        String label = System.getProperty("list.label", "list");
+
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("list.db-url", "jdbc:postgresql://localhost:5432/ecommerce_db"),
+                System.getProperty("list.db-username", "postgres"),
+                System.getProperty("list.db-password", "postgres"))) {
+            benchmark.seed(connection);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("rows", benchmark.rows);
+        report.put("iterations", benchmark.iterations);
+        report.putAll(benchmark.run(label));
+        report(label, report);
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            long existing;
+            try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM products WHERE category = '" + CATEGORY + "'")) {
+                rs.next();
+                existing = rs.getLong(1);
+            }
+            if (existing >= rows) {
+                return;
+            }
+            System.out.printf("Seeding %d products...%n", rows - existing);
+            // Descriptions near the 255-character limit, as a supplier feed fills them
+            statement.executeUpdate("""
+                    INSERT INTO products (sku, name, description, price, stock_quantity, category)
+                    SELECT 'LIST-' || n, 'List item ' || n, left(repeat('Seeded by ProductListBenchmark ' || n || '. ', 8), 250),
+                           100 + (n::bigint * 7919) %% 9901, n %% 50, '%s'
+                    FROM generate_series(%d, %d) AS n
+                    ON CONFLICT (sku) DO NOTHING
+                    """.formatted(CATEGORY, existing + 1, rows));
+            statement.execute("ANALYZE products");
+        }
+    }
+
+    private Map<String, Object> run(String label) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(serviceUrl + "/api/products?category=" + CATEGORY))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        for (int i = 0; i < Math.min(iterations, 20); i++) {
+            send(request);
+        }
+
+        double allocatedBefore = allocatedBytes();
+        LatencyRecorder recorder = new LatencyRecorder();
+        long responseBytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long requestStart = System.nanoTime();
+            try {
+                responseBytes = send(request);
+                recorder.record(label, System.nanoTime() - requestStart);
+            } catch (IOException | IllegalStateException e) {
+                recorder.error(label);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        double allocated = allocatedBytes() - allocatedBefore;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("responseBytes", responseBytes);
+        result.put("allocatedMbPerRequest", Math.round(allocated / iterations / 1024 / 1024 * 100) / 100.0);
+        result.put("latency", recorder.summary(elapsed).get(label));
+        return result;
+    }
+
+    private long send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("List returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    private double allocatedBytes() throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(URI.create(serviceUrl + "/actuator/prometheus"))
+                        .header("Authorization", "Bearer " + adminToken)
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Prometheus returned " + response.statusCode() + "; set list.admin-token");
+        }
+        return response.body().lines()
+                .filter(line -> line.startsWith(ALLOCATED))
+                .mapToDouble(line -> Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1)))
+                .sum();
+    }
+
+    private static void report(String label, Map<String, Object> report) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(report));
+
+        File file = new File(System.getProperty("list.report", "target/list-benchmark-" + label + ".json"));
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writeValue(file, report);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+}
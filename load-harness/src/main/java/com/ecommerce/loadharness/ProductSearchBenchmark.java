@@ -0,0 +1,233 @@
+package com.ecommerce.loadharness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Benchmarks POST /api/products/search at catalogue scale: seeds {@code search.rows}
+ * products straight into PostgreSQL (once; rows already seeded are kept), then runs
+ * each filter combination against product-service and reports its latency together
+ * with the sequential and index scans it caused on products.
+ *
+ * <pre>
+ * mvn -pl load-harness exec:java -Dexec.mainClass=com.ecommerce.loadharness.ProductSearchBenchmark \
+ *     -Dsearch.url=http://localhost:8082 -Dsearch.db-url=jdbc:postgresql://localhost:5432/ecommerce_db \
+ *     -Dsearch.rows=1000000
+ * </pre>
+ *
+ * Run it against a service without a read replica, so that the scans counted are the
+ * ones its queries made. The seeded products bypass the facet counts; rebuild them with
+ * POST /api/products/facets/rebuild afterwards.
+ */
+public class ProductSearchBenchmark {
+
+    private static final String[] CATEGORIES = {
+            "Electronics", "Books", "Clothing", "Home", "Garden", "Toys", "Sports", "Beauty",
+            "Grocery", "Automotive", "Music", "Office", "Pets", "Health", "Tools", "Games"
+    };
+
+    // Filter combinations a storefront sends; prices are in cents
+    private static final Map<String, String> SCENARIOS = new LinkedHashMap<>();
+
+    static {
+        SCENARIOS.put("category", "{\"category\":\"books\"}");
+        SCENARIOS.put("category+price", "{\"category\":\"books\",\"minPrice\":1000,\"maxPrice\":2500}");
+        SCENARIOS.put("category+price+inStock", "{\"category\":\"books\",\"minPrice\":1000,\"maxPrice\":2500,\"inStock\":true}");
+        SCENARIOS.put("category+sort=PRICE", "{\"category\":\"toys\",\"sort\":\"PRICE\"}");
+        SCENARIOS.put("category+sort=PRICE_DESC+inStock", "{\"category\":\"toys\",\"sort\":\"PRICE_DESC\",\"inStock\":true}");
+        SCENARIOS.put("category+sort=NAME", "{\"category\":\"music\",\"sort\":\"NAME\"}");
+        SCENARIOS.put("category+sort=NEWEST+page=20", "{\"category\":\"music\",\"sort\":\"NEWEST\",\"page\":20}");
+        SCENARIOS.put("price", "{\"minPrice\":4990,\"maxPrice\":5000}");
+        SCENARIOS.put("price+sort=PRICE", "{\"minPrice\":4990,\"maxPrice\":5000,\"sort\":\"PRICE\"}");
+        SCENARIOS.put("sort=NEWEST+inStock", "{\"sort\":\"NEWEST\",\"inStock\":true}");
+        SCENARIOS.put("name+category", "{\"name\":\"item 4242\",\"category\":\"garden\"}");
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final String serviceUrl;
+    private final String dbUrl;
+    private final String dbUser;
+    private final String dbPassword;
+    private final int rows;
+    private final int iterations;
+
+    public ProductSearchBenchmark(String serviceUrl, String dbUrl, String dbUser, String dbPassword,
+                                  int rows, int iterations) {
+        this.serviceUrl = serviceUrl;
+        this.dbUrl = dbUrl;
+        this.dbUser = dbUser;
+        this.dbPassword = dbPassword;
+        this.rows = rows;
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ProductSearchBenchmark benchmark = new ProductSearchBenchmark(
+                System.getProperty("search.url", "http://localhost:8082"),
+                System.getProperty("search.db-url", "jdbc:postgresql://localhost:5432/ecommerce_db"),
+                System.getProperty("search.db-username", "postgres"),
+                System.getProperty("search.db-password", "postgres"),
+                Integer.getInteger("search.rows", 1_000_000),
+                Integer.getInteger("search.iterations", 200));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        try (Connection connection = DriverManager.getConnection(benchmark.dbUrl, benchmark.dbUser, benchmark.dbPassword)) {
+            report.put("products", benchmark.seed(connection));
+            report.put("iterations", benchmark.iterations);
+            Map<String, Object> scenarios = new LinkedHashMap<>();
+            for (Map.Entry<String, String> scenario : SCENARIOS.entrySet()) {
+                scenarios.put(scenario.getKey(), benchmark.run(connection, scenario.getKey(), scenario.getValue()));
+            }
+            report.put("scenarios", scenarios);
+        }
+        report(report);
+    }
+
+    private long seed(Connection connection) throws SQLException {
+        long existing = count(connection, "SELECT count(*) FROM products WHERE sku LIKE 'BENCH-%'");
+        if (existing < rows) {
+            System.out.printf("Seeding %d products...%n", rows - existing);
+            long start = System.nanoTime();
+            StringBuilder categories = new StringBuilder("ARRAY[");
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                categories.append(i > 0 ? "," : "").append('\'').append(CATEGORIES[i]).append('\'');
+            }
+            categories.append(']');
+            try (Statement statement = connection.createStatement()) {
+                // Prices spread over 1.00-100.00; about one product in twenty is sold out
+                statement.executeUpdate("""
+                        INSERT INTO products (sku, name, description, price, stock_quantity, category)
+                        SELECT 'BENCH-' || n, 'Bench item ' || n, 'Seeded by ProductSearchBenchmark',
+                               100 + (n::bigint * 7919) %% 9901, CASE WHEN n %% 20 = 0 THEN 0 ELSE 1 + n %% 50 END,
+                               (%s)[1 + n %% %d]
+                        FROM generate_series(%d, %d) AS n
+                        ON CONFLICT (sku) DO NOTHING
+                        """.formatted(categories, CATEGORIES.length, existing + 1, rows));
+                statement.execute("ANALYZE products");
+            }
+            System.out.printf("Seeded in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        }
+        return count(connection, "SELECT count(*) FROM products");
+    }
+
+    private Map<String, Object> run(Connection connection, String name, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(serviceUrl + "/api/products/search"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        // Warm up the plan cache and the pages the query touches
+        int results = 0;
+        for (int i = 0; i < Math.min(iterations, 20); i++) {
+            results = send(request).size();
+        }
+
+        Scans before = scans(connection);
+        LatencyRecorder recorder = new LatencyRecorder();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long requestStart = System.nanoTime();
+            try {
+                send(request);
+                recorder.record(name, System.nanoTime() - requestStart);
+            } catch (IOException | IllegalStateException e) {
+                recorder.error(name);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Scans after = scans(connection);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("request", objectMapper.readTree(body));
+        result.put("results", results);
+        result.putAll(castStats(recorder.summary(elapsed).get(name)));
+        result.put("seqScans", after.seq - before.seq);
+        result.put("indexScans", after.index - before.index);
+        result.put("indexes", after.indexDelta(before));
+        System.out.printf("%-36s p50 %6.2f ms  p99 %6.2f ms  seq scans %d%n",
+                name, result.get("p50Ms"), result.get("p99Ms"), after.seq - before.seq);
+        return result;
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Search returned " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    // The statistics collector publishes counters with a short delay, so give it a moment
+    private static Scans scans(Connection connection) throws SQLException, InterruptedException {
+        Thread.sleep(1_000);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_stat_clear_snapshot()");
+            long seq = count(connection, "SELECT seq_scan FROM pg_stat_user_tables WHERE relname = 'products'");
+            Map<String, Long> indexes = new LinkedHashMap<>();
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT indexrelname, idx_scan FROM pg_stat_user_indexes WHERE relname = 'products' ORDER BY indexrelname")) {
+                while (rs.next()) {
+                    indexes.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+            return new Scans(seq, indexes.values().stream().mapToLong(Long::longValue).sum(), indexes);
+        }
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castStats(Object stats) {
+        return (Map<String, Object>) stats;
+    }
+
+    private static void report(Map<String, Object> report) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File file = new File(System.getProperty("search.report", "target/search-benchmark.json"));
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writeValue(file, report);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+
+    private record Scans(long seq, long index, Map<String, Long> indexes) {
+
+        // Only the indexes the scenario used
+        Map<String, Long> indexDelta(Scans before) {
+            Map<String, Long> delta = new LinkedHashMap<>();
+            indexes.forEach((name, scans) -> {
+                long used = scans - before.indexes.getOrDefault(name, 0L);
+                if (used > 0) {
+                    delta.put(name, used);
+                }
+            });
+            return delta;
+        }
+    }
+}
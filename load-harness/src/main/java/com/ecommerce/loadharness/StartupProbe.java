@@ -0,0 +1,123 @@
+package com.ecommerce.loadharness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures time-to-first-request of a service: starts the given command, polls
+ * {@code startup.url} until any HTTP response comes back, stops the process and
+ * repeats. Any status counts, since a 401 or a DOWN health check still means the
+ * server is accepting requests. The command is everything after the options, e.g.
+ *
+ * <pre>
+ * mvn -pl load-harness exec:java -Dexec.mainClass=com.ecommerce.loadharness.StartupProbe \
+ *     -Dstartup.url=http://localhost:8082/actuator/health -Dstartup.label=product-cds \
+ *     -Dexec.args="docker run --rm -p 8082:8080 --env-file product.env product-service"
+ * </pre>
+ */
+public class StartupProbe {
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+    private final URI url;
+    private final int runs;
+    private final Duration timeout;
+    private final List<String> command;
+
+    public StartupProbe(URI url, int runs, Duration timeout, List<String> command) {
+        this.url = url;
+        this.runs = runs;
+        this.timeout = timeout;
+        this.command = command;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: StartupProbe <command...> (with -Dstartup.url=...)");
+            System.exit(2);
+        }
+        StartupProbe probe = new StartupProbe(
+                URI.create(System.getProperty("startup.url", "http://localhost:8080/actuator/health")),
+                Integer.getInteger("startup.runs", 5),
+                Duration.ofSeconds(Long.getLong("startup.timeout-seconds", 180L)),
+                Arrays.asList(args));
+
+        List<Long> millis = new ArrayList<>();
+        for (int run = 1; run <= probe.runs; run++) {
+            long elapsed = probe.measure();
+            System.out.printf("Run %d: first response after %d ms%n", run, elapsed);
+            millis.add(elapsed);
+        }
+        report(System.getProperty("startup.label", "startup"), probe, millis);
+    }
+
+    private long measure() throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Process exited with " + process.exitValue() + " before serving a request");
+                }
+                if (responds()) {
+                    return (System.nanoTime() - start) / 1_000_000;
+                }
+                Thread.sleep(20);
+            }
+            throw new IllegalStateException("No response from " + url + " within " + timeout);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private boolean responds() throws InterruptedException {
+        try {
+            http.send(HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(5)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void report(String label, StartupProbe probe, List<Long> millis) throws IOException {
+        List<Long> sorted = millis.stream().sorted().toList();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("command", String.join(" ", probe.command));
+        report.put("url", probe.url.toString());
+        report.put("runsMs", millis);
+        report.put("minMs", sorted.get(0));
+        report.put("medianMs", sorted.get(sorted.size() / 2));
+        report.put("maxMs", sorted.get(sorted.size() - 1));
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(report));
+
+        File file = new File(System.getProperty("startup.report", "target/startup-" + label + ".json"));
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writeValue(file, report);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.order.config;
+
+import com.ecommerce.order.dto.ArchiveReportRow;
+import com.ecommerce.order.dto.OrderItemRequest;
+import com.ecommerce.order.dto.OrderItemResponse;
+import com.ecommerce.order.dto.OrderRequest;
+import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.dto.OrderStatusEvent;
+import com.ecommerce.order.dto.PaymentReconciliation;
+import com.ecommerce.order.dto.PaymentRequest;
+import com.ecommerce.order.dto.ProductResponse;
+import com.ecommerce.order.dto.ResourceVersion;
+import com.ecommerce.order.entity.ArchivedOrder;
+import com.ecommerce.order.entity.ArchivedOrderItem;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.entity.Payment;
+import com.ecommerce.order.entity.ReaperCheckpoint;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+
+/**
+ * Reflection hints for the native image (-Pnative). Spring AOT finds controller
+ * signatures on its own, but not the types only WebClient (de)serializes or the
+ * classes libraries load by name; on the JVM none of this has any effect.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.Hints.class)
+@RegisterReflectionForBinding({
+        OrderRequest.class, OrderItemRequest.class, OrderResponse.class, OrderItemResponse.class,
+        OrderStatusEvent.class, PaymentRequest.class, PaymentReconciliation.class, ProductResponse.class,
+        ArchiveReportRow.class, ResourceVersion.class
+})
+public class NativeHintsConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        private static final MemberCategory[] ALL = MemberCategory.values();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Hibernate instantiates the entities and calls their Lombok-generated accessors reflectively
+            for (Class<?> entity : new Class<?>[]{Order.class, OrderItem.class, Payment.class, OrderStatus.class,
+                    ReaperCheckpoint.class, ArchivedOrder.class, ArchivedOrderItem.class}) {
+                hints.reflection().registerType(entity, ALL);
+            }
+
+            // Nimbus parses JOSE headers and claims with its shaded Gson
+            hints.reflection().registerType(
+                    TypeReference.of("com.nimbusds.jose.shaded.gson.internal.LinkedTreeMap"), ALL);
+
+            // resilience4j instances bound from application.yml; retryExceptions are resolved by class name
+            hints.reflection().registerType(TypeReference.of(
+                    "io.github.resilience4j.common.circuitbreaker.configuration.CommonCircuitBreakerConfigurationProperties$InstanceProperties"), ALL);
+            hints.reflection().registerType(TypeReference.of(
+                    "io.github.resilience4j.common.retry.configuration.CommonRetryConfigurationProperties$InstanceProperties"), ALL);
+            hints.reflection().registerType(WebClientResponseException.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(IOException.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+    }
+}
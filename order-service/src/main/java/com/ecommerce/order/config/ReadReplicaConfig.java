@@ -0,0 +1,152 @@
+package com.ecommerce.order.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary and replica pools behind one DataSource, enabled with
+ * {@code application.datasource.replica.enabled}; see ReplicaRouting for which reads
+ * are sent to the replica.
+ * <p>
+ * Connections are fetched lazily, at the first statement, and taken from the replica
+ * side only when the transaction marked them read-only. Flyway, the reaper and the
+ * archiver write through the primary. JDBC observations wrap each pool, since they
+ * touch the connection as soon as it is handed out and would defeat the lazy fetch.
+ * Hikari metrics are tagged {@code pool=primary} or {@code pool=replica}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    // Seconds the replica is behind; 0 when it has replayed everything it received
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("application.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${application.datasource.replica.url}") String url,
+            @Value("${application.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${application.datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                        @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                        ReplicaRouting routing) {
+        DataSource writes = new DelegatingDataSource(primaryDataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                routing.route(false);
+                return super.getConnection();
+            }
+        };
+        DataSource reads = new DelegatingDataSource(primaryDataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return (routing.route(true) == ReplicaRouting.Pool.REPLICA
+                        ? replicaDataSource : primaryDataSource).getConnection();
+            }
+        };
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writes);
+        dataSource.setReadOnlyDataSource(reads);
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicaRouting routing,
+            MeterRegistry meterRegistry,
+            @Value("${application.datasource.replica.max-lag:2s}") Duration maxLag,
+            @Value("${application.datasource.replica.lag-check-interval:1s}") Duration interval,
+            @Value("${application.datasource.replica.sticky-window:5s}") Duration stickyWindow) {
+        double[] lag = {Double.NaN};
+        Gauge.builder("db.replica.lag", lag, l -> l[0])
+                .description("Seconds the read replica is behind the primary; NaN when it cannot be reached")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Straight to the pool, so the checks do not show up as JDBC spans
+        HikariDataSource replica = unwrap(replicaDataSource);
+        executor.scheduleWithFixedDelay(() -> {
+            boolean wasUsable = routing.replicaUsable();
+            try (Connection connection = replica.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(LAG_QUERY)) {
+                result.next();
+                lag[0] = result.getDouble(1);
+            } catch (Exception e) {
+                lag[0] = Double.NaN;
+            }
+            boolean usable = !Double.isNaN(lag[0]) && lag[0] <= maxLag.toMillis() / 1000.0;
+            routing.replicaUsable(usable);
+            if (usable != wasUsable) {
+                log.warn("Read replica {}: lag {}s, max {}s", usable ? "back in use" : "bypassed",
+                        lag[0], maxLag.toMillis() / 1000.0);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(routing::forgetExpiredWrites,
+                stickyWindow.toMillis(), stickyWindow.toMillis(), TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Replica DataSource is not a Hikari pool", e);
+        }
+    }
+}
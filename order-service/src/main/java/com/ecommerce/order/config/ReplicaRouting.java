@@ -0,0 +1,145 @@
+package com.ecommerce.order.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decides which pool a connection comes from when a read replica is configured
+ * (see ReadReplicaConfig). Reads wrapped in {@link #readOnly} go to the replica, as
+ * do the repositories' own read-only methods, except:
+ * <ul>
+ *     <li>for a user who placed, confirmed or cancelled an order within
+ *     {@code sticky-window}, so that they see it straight away;</li>
+ *     <li>inside {@link #onPrimary}, for reads that are followed by a write;</li>
+ *     <li>while the replica is further behind than {@code max-lag}, or cannot be
+ *     reached.</li>
+ * </ul>
+ * The work runs on boundedElastic threads without a SecurityContext, so the user is
+ * passed in rather than looked up. Every connection handed out is counted as
+ * {@code db.routing} by pool and reason.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicaRouting {
+
+    public enum Pool {
+        PRIMARY,
+        REPLICA
+    }
+
+    // Why the current thread must stay on the primary, if it must
+    private static final ThreadLocal<String> PINNED = new ThreadLocal<>();
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    // The DataSource depends on this bean, so the transaction manager is looked up late
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final MeterRegistry meterRegistry;
+    private volatile boolean replicaUsable = true;
+    private volatile TransactionTemplate readOnlyTemplate;
+
+    // Without a replica nothing reads lastWrites, so nothing is recorded
+    @Value("${application.datasource.replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${application.datasource.replica.sticky-window:5s}")
+    private Duration stickyWindow;
+
+    /** Sends the user's reads to the primary for the next sticky-window. */
+    public void recordWrite(String user) {
+        if (enabled && user != null) {
+            lastWrites.put(user, System.nanoTime());
+        }
+    }
+
+    /** Forgets users whose sticky-window has passed; run by the lag monitor. */
+    void forgetExpiredWrites() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(at -> now - at > stickyWindow.toNanos());
+    }
+
+    /** Runs the reads in one read-only transaction, on the replica unless the user is sticky. */
+    public <T> T readOnly(String user, Supplier<T> reads) {
+        Supplier<T> transactional = () -> readOnlyTemplate().execute(status -> reads.get());
+        return isSticky(user) ? pinned("sticky", transactional) : transactional.get();
+    }
+
+    /** Runs the work with every connection taken from the primary. */
+    public <T> T onPrimary(Supplier<T> work) {
+        return pinned("pinned", work);
+    }
+
+    /** Pool for a connection about to be handed out, counted as db.routing. */
+    Pool route(boolean readOnly) {
+        Decision decision = decide(readOnly);
+        Counter.builder("db.routing")
+                .description("Connections handed out by the routing data source")
+                .tag("pool", decision.pool().name().toLowerCase())
+                .tag("reason", decision.reason())
+                .register(meterRegistry)
+                .increment();
+        return decision.pool();
+    }
+
+    private Decision decide(boolean readOnly) {
+        if (!readOnly) {
+            return new Decision(Pool.PRIMARY, "write");
+        }
+        String pinned = PINNED.get();
+        if (pinned != null) {
+            return new Decision(Pool.PRIMARY, pinned);
+        }
+        if (!replicaUsable) {
+            return new Decision(Pool.PRIMARY, "lag");
+        }
+        return new Decision(Pool.REPLICA, "read");
+    }
+
+    boolean replicaUsable() {
+        return replicaUsable;
+    }
+
+    void replicaUsable(boolean usable) {
+        this.replicaUsable = usable;
+    }
+
+    private <T> T pinned(String reason, Supplier<T> work) {
+        String previous = PINNED.get();
+        PINNED.set(previous != null ? previous : reason);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PINNED.remove();
+            }
+        }
+    }
+
+    private boolean isSticky(String user) {
+        Long at = user != null ? lastWrites.get(user) : null;
+        return at != null && System.nanoTime() - at < stickyWindow.toNanos();
+    }
+
+    private TransactionTemplate readOnlyTemplate() {
+        TransactionTemplate template = readOnlyTemplate;
+        if (template == null) {
+            template = new TransactionTemplate(transactionManager.getObject());
+            template.setReadOnly(true);
+            readOnlyTemplate = template;
+        }
+        return template;
+    }
+
+    private record Decision(Pool pool, String reason) {
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.order.config;
 //import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtEnumerableAuthoritiesConverterAdapter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -51,12 +53,28 @@ public class SecurityConfig {
 
 
     @Bean
-    public ReactiveJwtDecoder jwtDecoder() {
+    public ReactiveJwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
         byte[] keyBytes = Base64.getDecoder().decode(secretKey);
         SecretKeySpec spec = new SecretKeySpec(keyBytes, "HmacSHA384");
-        return NimbusReactiveJwtDecoder.withSecretKey(spec)
+        ReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withSecretKey(spec)
                 .macAlgorithm(MacAlgorithm.HS384)
                 .build();
+
+        Timer valid = jwtVerificationTimer(meterRegistry, "valid");
+        Timer invalid = jwtVerificationTimer(meterRegistry, "invalid");
+        return token -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return decoder.decode(token)
+                    .doOnSuccess(jwt -> sample.stop(valid))
+                    .doOnError(e -> sample.stop(invalid));
+        });
+    }
+
+    private static Timer jwtVerificationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Time to verify a JWT and parse its claims")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
     @Bean
     public ReactiveJwtAuthenticationConverter jwtAuthenticationConverter() {
@@ -0,0 +1,35 @@
+package com.ecommerce.order.config;
+
+import com.ecommerce.order.service.OrderArchiver;
+import com.ecommerce.order.service.OrderReaper;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Beans that stay eager when the startup profile turns on lazy initialization:
+ * migrations run at boot (schema validation is off, so an entity that no longer
+ * matches the schema fails on its first query), the scheduler metrics
+ * hook has to be in place before the first scheduler is created, and the
+ * @Scheduled methods of the order reaper and archiver are only registered once
+ * their beans exist. The replica lag monitor, when configured, starts checking
+ * before the first read is routed.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                FlywayMigrationInitializer.class,
+                LocalContainerEntityManagerFactoryBean.class,
+                SchedulerMetricsConfig.class,
+                OrderReaper.class,
+                OrderArchiver.class,
+                ScheduledExecutorService.class);
+    }
+}
@@ -0,0 +1,157 @@
+package com.ecommerce.order.config;
+
+import com.ecommerce.order.dto.OrderItemRequest;
+import com.ecommerce.order.dto.OrderItemResponse;
+import com.ecommerce.order.dto.OrderRequest;
+import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.dto.PaymentRequest;
+import com.ecommerce.order.dto.ProductResponse;
+import com.ecommerce.order.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up before readiness (see application.warmup): the Hikari pool and the order
+ * queries, the connections to application.warmup.endpoints, the order DTOs and JWTs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String WARMUP_EMAIL = "warmup@example.invalid";
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final WebClient.Builder webClientBuilder;
+    private final ReactiveJwtAuthenticationConverter jwtAuthenticationConverter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${application.warmup.endpoints:}")
+    private List<String> endpoints;
+
+    @Value("${application.warmup.connections:4}")
+    private int connections;
+
+    @Value("${application.warmup.timeout:10s}")
+    private Duration timeout;
+
+    @Value("${application.security.jwt.secret-key}")
+    private String secretKey;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Timer.Sample total = Timer.start(meterRegistry);
+        step("database", this::database);
+        step("http", this::endpoints);
+        step("json", this::json);
+        step("jwt", this::jwt);
+        long elapsed = total.stop(meterRegistry.timer("warmup.duration", "step", "total"));
+        log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    // The first connection starts the Hikari pool, which then fills itself up to minimum-idle
+    private void database() {
+        orderRepository.findVersionByUserEmailIncludingArchive(WARMUP_EMAIL);
+        orderRepository.findByUserEmailIncludingArchive(WARMUP_EMAIL);
+        orderRepository.findByIdIncludingArchive(-1L);
+    }
+
+    // Any status will do; the WebClients built from the shared builder share its pool
+    private void endpoints() {
+        WebClient client = webClientBuilder.build();
+        Flux.fromIterable(endpoints)
+                .flatMap(uri -> Flux.range(0, connections)
+                        .flatMap(i -> client.get().uri(uri).exchangeToMono(ClientResponse::releaseBody))
+                        .onErrorResume(e -> {
+                            log.warn("Warm-up could not reach {}: {}", uri, e.getMessage());
+                            return Mono.empty();
+                        }))
+                .blockLast(timeout);
+    }
+
+    private void json() throws Exception {
+        OrderRequest request = new OrderRequest(List.of(new OrderItemRequest(1L, 2)), null);
+        ProductResponse product = new ProductResponse(1L, "Warm-up product", 1000L, 100);
+        PaymentRequest payment = new PaymentRequest(1L, 2000L, WARMUP_EMAIL, "Order #1");
+        OrderResponse order = new OrderResponse(1L, WARMUP_EMAIL,
+                List.of(new OrderItemResponse(1L, 2, 1000L, 2000L)),
+                2000L, "PENDING", LocalDateTime.now(), "https://checkout.example.invalid/warmup");
+        for (int i = 0; i < iterations; i++) {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(request), OrderRequest.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(product), ProductResponse.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(payment), PaymentRequest.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(order), OrderResponse.class);
+        }
+    }
+
+    // A decoder of its own, so that jwt.verification only counts real requests
+    private void jwt() throws Exception {
+        byte[] key = Base64.getDecoder().decode(secretKey);
+        ReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withSecretKey(new SecretKeySpec(key, "HmacSHA384"))
+                .macAlgorithm(MacAlgorithm.HS384)
+                .build();
+        SignedJWT token = new SignedJWT(new JWSHeader(JWSAlgorithm.HS384), new JWTClaimsSet.Builder()
+                .subject(WARMUP_EMAIL)
+                .claim("roles", List.of("ROLE_USER"))
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + timeout.toMillis()))
+                .build());
+        token.sign(new MACSigner(key));
+        String serialized = token.serialize();
+        for (int i = 0; i < iterations; i++) {
+            jwtAuthenticationConverter.convert(decoder.decode(serialized).block(timeout)).block(timeout);
+        }
+    }
+
+    private void step(String name, Step step) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            step.run();
+        } catch (Exception e) {
+            log.warn("Warm-up step {} failed: {}", name, e.toString());
+        }
+        sample.stop(meterRegistry.timer("warmup.duration", "step", name));
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+}
@@ -1,6 +1,10 @@
 package com.ecommerce.order.config;
 
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.client.reactive.ClientHttpConnectorBuilderCustomizer;
+import org.springframework.boot.http.client.reactive.ReactorClientHttpConnectorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -10,32 +14,54 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Configuration
 public class WebClientConfig {
 
+        // Smile is Jackson's binary JSON; a service deployed without it answers JSON
+        private static final String SMILE_OR_JSON = "application/x-jackson-smile, application/json;q=0.9";
+
         @Value("${product.service.url}")
         private String productUrl;
 
-        @Value("${stripe.api.url:https://api.stripe.com/v1}")
-        private String stripeUrl;
+        @Value("${application.payment-service.url}")
+        private String paymentUrl;
 
-        @Value("${stripe.secret-key}")
-        private String stripeSecretKey;
+        @Value("${application.internal-calls.codec:json}")
+        private String codec;
 
         @Bean
         public WebClient productWebClient(WebClient.Builder builder) {
             return builder.clone()
                     .baseUrl(productUrl)
                     .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .defaultHeader(HttpHeaders.ACCEPT, accept())
                     .build();
         }
 
+        /** For typed responses from payment-service; the checkout session URL is plain text. */
         @Bean
-        public WebClient stripeWebClient(WebClient.Builder builder) {
-
-            System.out.println("Stripe Client initializing with base URL: " + stripeUrl);
+        public WebClient paymentWebClient(WebClient.Builder builder) {
             return builder.clone()
-                    .baseUrl(stripeUrl)
-                    .defaultHeader("Authorization", "Bearer " + stripeSecretKey)
-                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .baseUrl(paymentUrl)
+                    .defaultHeader(HttpHeaders.ACCEPT, accept())
                     .build();
         }
-    }
 
+        /**
+         * Asks every service called for a compressed response and inflates it. Services
+         * only compress bodies above their server.compression.min-response-size.
+         */
+        @Bean
+        public ClientHttpConnectorBuilderCustomizer<ReactorClientHttpConnectorBuilder> compressionConnectorCustomizer(
+                @Value("${application.internal-calls.compression:true}") boolean compression) {
+            return builder -> !compression ? builder : builder.withHttpClientCustomizer(httpClient -> httpClient
+                    // compress(true) offers gzip only; zstd costs less CPU when the native library loads
+                    .compress(true)
+                    .headers(headers -> {
+                        if (Zstd.isAvailable()) {
+                            headers.set(HttpHeaderNames.ACCEPT_ENCODING, "zstd, gzip");
+                        }
+                    }));
+        }
+
+        private String accept() {
+            return "smile".equalsIgnoreCase(codec) ? SMILE_OR_JSON : MediaType.APPLICATION_JSON_VALUE;
+        }
+    }
@@ -1,11 +1,21 @@
 package com.ecommerce.order.controller;
 
+import com.ecommerce.order.dto.ArchiveReportRow;
 import com.ecommerce.order.dto.OrderRequest;
 import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.dto.OrderStatusEvent;
+import com.ecommerce.order.events.OrderStatusBus;
 import com.ecommerce.order.entity.Order;
 import com.ecommerce.order.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -14,12 +24,19 @@ import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderStatusBus orderStatusBus;
+
+    @Value("${application.order-status.max-stream-duration:10m}")
+    private Duration maxStreamDuration;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -33,18 +50,60 @@ public class OrderController {
         return orderService.placeOrder(request, userEmail, token);
     }
 
+    // The body is only subscribed to, and the orders loaded, when If-None-Match /
+    // If-Modified-Since do not match; otherwise the answer is a 304
     @GetMapping("/my-orders")
-    public Flux<OrderResponse> getOrderHistory(@AuthenticationPrincipal Jwt jwt) {
-        return orderService.getOrdersByUser(jwt.getSubject());
+    public Mono<ResponseEntity<Flux<OrderResponse>>> getOrderHistory(@AuthenticationPrincipal Jwt jwt) {
+        return orderService.getOrdersVersion(jwt.getSubject())
+                .map(version -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .cacheControl(CacheControl.noCache().cachePrivate())
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .eTag(version.etag());
+                    if (version.lastModifiedInstant() != null) {
+                        response.lastModified(version.lastModifiedInstant());
+                    }
+                    return response.body(orderService.getOrdersByUser(jwt.getSubject()));
+                });
+    }
+
+    // Replaces polling my-orders after checkout. Streams are closed after the first
+    // terminal status, max-stream-duration or on shutdown; clients reconnect and get
+    // the current status first.
+    @GetMapping(value = "/{id}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<OrderStatusEvent>> streamOrderStatus(
+            @PathVariable Long id,
+            @AuthenticationPrincipal Jwt jwt) {
+        Flux<ServerSentEvent<OrderStatusEvent>> statuses = orderService.streamStatus(id, jwt.getSubject())
+                .map(event -> ServerSentEvent.builder(event)
+                        .event("status")
+                        .id(event.status().name())
+                        .build());
+        Flux<ServerSentEvent<OrderStatusEvent>> heartbeats = orderStatusBus.heartbeats()
+                .map(tick -> ServerSentEvent.<OrderStatusEvent>builder().comment("keep-alive").build());
+
+        return statuses.mergeWith(heartbeats)
+                .takeUntil(sse -> sse.data() != null && sse.data().terminal())
+                .take(maxStreamDuration)
+                .takeUntilOther(orderStatusBus.closing());
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')") // This blocks non-admins
-    public Mono<OrderResponse> getOrderById(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt) {
-        System.out.println("User Claims: " + jwt.getClaims());
+    public Mono<OrderResponse> getOrderById(@PathVariable Long id) {
         return orderService.getOrderById(id)
                 .map(orderService::mapToResponse);
     }
+
+    // Reads the archive only; orders closed within archive-after are not included yet
+    @GetMapping("/reports/archive")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public Flux<ArchiveReportRow> archiveReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return orderService.archiveReport(from, to);
+    }
+
     @PatchMapping("/{id}/confirm")
     public Mono<Void> confirmOrder(
             @PathVariable Long id,
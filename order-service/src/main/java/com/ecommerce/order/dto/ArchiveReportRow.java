@@ -0,0 +1,14 @@
+package com.ecommerce.order.dto;
+
+import com.ecommerce.order.entity.OrderStatus;
+
+import java.time.LocalDate;
+
+// Revenue is in cents, like Order.totalAmount
+public record ArchiveReportRow(
+        LocalDate day,
+        OrderStatus status,
+        Long orders,
+        Long revenue
+) {
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.order.dto;
+
+import com.ecommerce.order.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+
+public record OrderStatusEvent(
+        Long orderId,
+        OrderStatus status,
+        LocalDateTime timestamp
+) {
+    public boolean terminal() {
+        return status == OrderStatus.CONFIRMED || status == OrderStatus.CANCELLED;
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.order.dto;
+
+/**
+ * Answer of payment-service's reconcile endpoint for one order. OPEN means the
+ * checkout session can still be paid; UNKNOWN that the provider could not be asked.
+ */
+public record PaymentReconciliation(
+        Long orderId,
+        Outcome outcome
+) {
+    public enum Outcome {
+        PAID,
+        UNPAID,
+        OPEN,
+        UNKNOWN
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.order.dto;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * What a conditional GET of my-orders is checked against: how many orders the user
+ * has and when the latest change to any of them happened.
+ */
+public record ResourceVersion(Long counter, LocalDateTime lastModified) {
+
+    public static final ResourceVersion NONE = new ResourceVersion(0L, null);
+
+    /** Both parts combined, for orders read from the hot table and the archive. */
+    public ResourceVersion plus(ResourceVersion other) {
+        LocalDateTime latest = lastModified == null || (other.lastModified != null && other.lastModified.isAfter(lastModified))
+                ? other.lastModified : lastModified;
+        return new ResourceVersion(counter + other.counter, latest);
+    }
+
+    /** Weak, because the same version goes out as JSON or Smile, compressed or not. */
+    public String etag() {
+        Instant instant = lastModifiedInstant();
+        return "W/\"" + counter + "-" + (instant != null ? instant.toEpochMilli() : 0) + "\"";
+    }
+
+    public Instant lastModifiedInstant() {
+        return lastModified != null ? lastModified.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A closed order moved out of the hot tables by OrderArchiver. Rows are only
+ * written by the archiver's bulk statements, never through this entity.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive")
+@Getter
+@NoArgsConstructor
+public class ArchivedOrder {
+    @Id
+    @Column(name = "order_id")
+    private Long id;
+
+    private String userEmail;
+
+    private Long totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private LocalDateTime orderDate;
+
+    private LocalDateTime archivedAt;
+
+    private LocalDateTime updatedAt;
+
+    @OneToMany(mappedBy = "order")
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+
+    /** Detached copy for code written against Order; it must not be saved. */
+    public Order toOrder() {
+        Order order = Order.builder()
+                .id(id)
+                .userEmail(userEmail)
+                .totalAmount(totalAmount)
+                .status(status)
+                .orderDate(orderDate)
+                .updatedAt(updatedAt)
+                .build();
+        for (ArchivedOrderItem item : items) {
+            order.addOrderItem(OrderItem.builder()
+                    .id(item.getId())
+                    .productId(item.getProductId())
+                    .quantity(item.getQuantity())
+                    .priceAtPurchase(item.getPriceAtPurchase())
+                    .itemSubtotal(item.getItemSubtotal())
+                    .build());
+        }
+        return order;
+    }
+}
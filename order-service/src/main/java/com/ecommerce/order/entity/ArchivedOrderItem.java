@@ -0,0 +1,24 @@
+package com.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+@Entity
+@Immutable
+@Table(name = "order_items_archive")
+@Getter
+@NoArgsConstructor
+public class ArchivedOrderItem {
+    @Id
+    private Long id;
+
+    private Long productId;
+    private Integer quantity;
+    private Long priceAtPurchase;
+    private Long itemSubtotal;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    private ArchivedOrder order;
+}
@@ -35,6 +35,8 @@ private List<OrderItem> items = new ArrayList<>();
 
     private LocalDateTime orderDate;
 
+    private LocalDateTime updatedAt;
+
     @OneToOne(mappedBy = "order", cascade = CascadeType.ALL)
     private Payment payment;
     public void addOrderItem(OrderItem item) {
@@ -47,9 +49,15 @@ private List<OrderItem> items = new ArrayList<>();
         if(this.orderDate == null) {
             this.orderDate = LocalDateTime.now();
         }
+        this.updatedAt = this.orderDate;
         calculateTotal();
     }
 
+    @PreUpdate
+    public void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     public void calculateTotal() {
         this.totalAmount = items.stream()
                 .mapToLong(item -> item.getPriceAtPurchase() * item.getQuantity())
@@ -3,7 +3,6 @@ package com.ecommerce.order.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -24,7 +23,8 @@ public class Payment {
     )
     private Order order;
 
-    private BigDecimal amount;
+    // Shared column with payment-service, stored in cents like Order.totalAmount
+    private Long amount;
     private String currency;
 
     private String paymentStatus;
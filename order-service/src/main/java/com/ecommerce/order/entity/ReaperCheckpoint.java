@@ -0,0 +1,23 @@
+package com.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_reaper_checkpoint")
+@Getter @Setter @NoArgsConstructor
+public class ReaperCheckpoint {
+
+    @Id
+    private String job;
+
+    // Highest order id the job has finished with
+    @Column(nullable = false)
+    private Long lastOrderId;
+
+    private String leaseOwner;
+    private LocalDateTime leaseUntil;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.order.events;
+
+import com.ecommerce.order.dto.OrderStatusEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+/**
+ * In-process broker for a single instance, local development and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "application.order-status.broker", havingValue = "local", matchIfMissing = true)
+public class LocalOrderStatusBroker implements OrderStatusBroker {
+
+    private final Sinks.Many<OrderStatusEvent> sink = Sinks.many().multicast().directBestEffort();
+
+    @Override
+    public void publish(OrderStatusEvent event) {
+        sink.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    @Override
+    public Flux<OrderStatusEvent> events() {
+        return sink.asFlux();
+    }
+}
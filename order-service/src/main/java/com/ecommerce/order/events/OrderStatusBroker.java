@@ -0,0 +1,17 @@
+package com.ecommerce.order.events;
+
+import com.ecommerce.order.dto.OrderStatusEvent;
+import reactor.core.publisher.Flux;
+
+/**
+ * Carries order status changes between order-service instances. An order may be
+ * confirmed on one node while its customer's status stream is held open by another,
+ * so every node publishes here and every node listens.
+ */
+public interface OrderStatusBroker {
+
+    void publish(OrderStatusEvent event);
+
+    /** Hot stream of events published by any node, including this one. */
+    Flux<OrderStatusEvent> events();
+}
@@ -0,0 +1,114 @@
+package com.ecommerce.order.events;
+
+import com.ecommerce.order.dto.OrderStatusEvent;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of order status changes to open status streams. Status changes
+ * go out through the OrderStatusBroker and come back in on every node; each incoming
+ * event is handed only to the sink of its order, so the cost of an event does not
+ * grow with the number of idle streams. Sinks exist only while someone listens.
+ */
+@Component
+public class OrderStatusBus {
+
+    private final OrderStatusBroker broker;
+    private final Map<Long, OrderSink> sinks = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Flux<Long> heartbeats;
+    private final Disposable brokerSubscription;
+    private final Sinks.Empty<Void> closing = Sinks.empty();
+
+    public OrderStatusBus(OrderStatusBroker broker,
+                          MeterRegistry meterRegistry,
+                          @Value("${application.order-status.heartbeat:15s}") Duration heartbeat) {
+        this.broker = broker;
+        // One timer shared by all streams instead of one per connection
+        this.heartbeats = Flux.interval(heartbeat).onBackpressureDrop().share();
+        this.brokerSubscription = broker.events().subscribe(this::dispatch);
+        Gauge.builder("order.status.streams", subscribers, AtomicInteger::get)
+                .description("Open order status streams on this instance")
+                .register(meterRegistry);
+    }
+
+    public void publish(Order order) {
+        publish(order.getId(), order.getStatus());
+    }
+
+    public void publish(Long orderId, OrderStatus status) {
+        broker.publish(new OrderStatusEvent(orderId, status, LocalDateTime.now()));
+    }
+
+    /** Live status changes of one order, from the moment of subscription. */
+    public Flux<OrderStatusEvent> updates(Long orderId) {
+        return Flux.defer(() -> {
+                    subscribers.incrementAndGet();
+                    return sinks.compute(orderId, (id, sink) -> (sink == null ? new OrderSink() : sink).retain())
+                            .sink.asFlux();
+                })
+                .doFinally(signal -> {
+                    subscribers.decrementAndGet();
+                    sinks.computeIfPresent(orderId, (id, sink) -> sink.release() ? null : sink);
+                });
+    }
+
+    public Flux<Long> heartbeats() {
+        return heartbeats;
+    }
+
+    /** Completes when the application starts shutting down. */
+    public Mono<Void> closing() {
+        return closing.asMono();
+    }
+
+    // Open streams would otherwise hold up graceful shutdown for max-stream-duration
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        closing.tryEmitEmpty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        brokerSubscription.dispose();
+    }
+
+    private void dispatch(OrderStatusEvent event) {
+        OrderSink sink = sinks.get(event.orderId());
+        if (sink != null) {
+            sink.sink.tryEmitNext(event);
+        }
+    }
+
+    // Reference count is only touched inside ConcurrentHashMap.compute for the key
+    private static final class OrderSink {
+        private final Sinks.Many<OrderStatusEvent> sink = Sinks.many().multicast().directBestEffort();
+        private int references;
+
+        OrderSink retain() {
+            references++;
+            return this;
+        }
+
+        boolean release() {
+            return --references == 0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.order.events;
+
+import com.ecommerce.order.dto.OrderStatusEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Fans status changes out to every order-service instance over Redis pub/sub, so a
+ * stream opened on any node behind the gateway sees confirmations made on another.
+ * Delivery is at-most-once; a client that misses an event gets the current status
+ * again when it reconnects.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.order-status.broker", havingValue = "redis")
+public class RedisOrderStatusBroker implements OrderStatusBroker {
+
+    private static final ChannelTopic CHANNEL = ChannelTopic.of("order-status");
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Flux<OrderStatusEvent> events;
+
+    public RedisOrderStatusBroker(ReactiveStringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.events = redisTemplate.listenTo(CHANNEL)
+                .flatMap(message -> decode(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Order status subscription lost, reconnecting: {}",
+                                signal.failure().getMessage())))
+                .share();
+    }
+
+    @Override
+    public void publish(OrderStatusEvent event) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL.getTopic(), objectMapper.writeValueAsString(event))
+                    .subscribe(null, e -> log.warn("Failed to publish status of order {}: {}",
+                            event.orderId(), e.getMessage()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Flux<OrderStatusEvent> events() {
+        return events;
+    }
+
+    private Mono<OrderStatusEvent> decode(String json) {
+        try {
+            return Mono.just(objectMapper.readValue(json, OrderStatusEvent.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping malformed order status message: {}", e.getMessage());
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.dto.ResourceVersion;
+import com.ecommerce.order.entity.Order;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads across the hot tables and the archive, for callers that should not care
+ * where an order lives. Archived orders come back as detached Order copies
+ * (see ArchivedOrder#toOrder).
+ */
+public interface ArchiveAwareOrderReads {
+
+    List<Order> findByUserEmailIncludingArchive(String userEmail);
+
+    Optional<Order> findByIdIncludingArchive(Long id);
+
+    /** Validators of findByUserEmailIncludingArchive, read without loading the orders. */
+    ResourceVersion findVersionByUserEmailIncludingArchive(String userEmail);
+}
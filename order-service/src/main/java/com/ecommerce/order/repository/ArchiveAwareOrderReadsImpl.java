@@ -0,0 +1,60 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.dto.ResourceVersion;
+import com.ecommerce.order.entity.ArchivedOrder;
+import com.ecommerce.order.entity.Order;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The hot table is read first: an order moved in between is then found in the
+// archive, or seen in both and kept once
+@RequiredArgsConstructor
+class ArchiveAwareOrderReadsImpl implements ArchiveAwareOrderReads {
+
+    private final EntityManager entityManager;
+    private final ArchivedOrderRepository archivedOrderRepository;
+
+    @Override
+    public List<Order> findByUserEmailIncludingArchive(String userEmail) {
+        List<Order> orders = new ArrayList<>(entityManager.createQuery(
+                        "SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.userEmail = :userEmail", Order.class)
+                .setParameter("userEmail", userEmail)
+                .getResultList());
+        Set<Long> hot = orders.stream().map(Order::getId).collect(Collectors.toSet());
+        for (ArchivedOrder archived : archivedOrderRepository.findByUserEmail(userEmail)) {
+            if (!hot.contains(archived.getId())) {
+                orders.add(archived.toOrder());
+            }
+        }
+        return orders;
+    }
+
+    // An order moved in between is counted twice, which only costs the client a full response
+    @Override
+    public ResourceVersion findVersionByUserEmailIncludingArchive(String userEmail) {
+        ResourceVersion hot = entityManager.createQuery("""
+                        SELECT new com.ecommerce.order.dto.ResourceVersion(count(o), max(o.updatedAt))
+                        FROM Order o WHERE o.userEmail = :userEmail
+                        """, ResourceVersion.class)
+                .setParameter("userEmail", userEmail)
+                .getSingleResult();
+        return hot.plus(archivedOrderRepository.findVersionByUserEmail(userEmail));
+    }
+
+    @Override
+    public Optional<Order> findByIdIncludingArchive(Long id) {
+        Optional<Order> hot = entityManager.createQuery(
+                        "SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id", Order.class)
+                .setParameter("id", id)
+                .getResultList()
+                .stream()
+                .findFirst();
+        return hot.isPresent() ? hot : archivedOrderRepository.findByIdWithItems(id).map(ArchivedOrder::toOrder);
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.dto.ArchiveReportRow;
+import com.ecommerce.order.dto.ResourceVersion;
+import com.ecommerce.order.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    @Query("SELECT DISTINCT o FROM ArchivedOrder o LEFT JOIN FETCH o.items WHERE o.userEmail = :userEmail")
+    List<ArchivedOrder> findByUserEmail(@Param("userEmail") String userEmail);
+
+    @Query("""
+            SELECT new com.ecommerce.order.dto.ResourceVersion(count(o), max(o.updatedAt))
+            FROM ArchivedOrder o WHERE o.userEmail = :userEmail
+            """)
+    ResourceVersion findVersionByUserEmail(@Param("userEmail") String userEmail);
+
+    @Query("SELECT o FROM ArchivedOrder o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    Optional<ArchivedOrder> findByIdWithItems(@Param("id") Long id);
+
+    // Reads orders_archive only, so reporting never scans or locks the hot tables
+    @Query("""
+            SELECT new com.ecommerce.order.dto.ArchiveReportRow(
+                       cast(o.orderDate as LocalDate), o.status, count(o), sum(o.totalAmount))
+            FROM ArchivedOrder o
+            WHERE o.orderDate >= :from AND o.orderDate < :to
+            GROUP BY cast(o.orderDate as LocalDate), o.status
+            ORDER BY cast(o.orderDate as LocalDate), o.status
+            """)
+    List<ArchiveReportRow> report(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // The archiver's batch. SKIP LOCKED lets several instances move orders at the same
+    // time, and skips an order a late webhook is updating. Orders that order-service's
+    // own payments rows point at stay, since order_id_fk references the hot table.
+    @Query(value = """
+            SELECT o.order_id FROM orders o
+            WHERE o.status IN ('CONFIRMED', 'CANCELLED') AND o.order_date < :cutoff
+              AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.order_id_fk = o.order_id)
+            ORDER BY o.order_date
+            LIMIT :limit
+            FOR UPDATE OF o SKIP LOCKED
+            """, nativeQuery = true)
+    List<Long> lockClosedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO orders_archive (order_id, user_email, total_amount, status, order_date, updated_at, archived_at)
+            SELECT order_id, user_email, total_amount, status, order_date, updated_at, :now
+            FROM orders WHERE order_id IN (:ids)
+            ON CONFLICT (order_id) DO NOTHING
+            """, nativeQuery = true)
+    int copyOrders(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_items_archive (id, product_id, quantity, price_at_purchase, item_subtotal, order_id)
+            SELECT id, product_id, quantity, price_at_purchase, item_subtotal, order_id
+            FROM order_items WHERE order_id IN (:ids)
+            ON CONFLICT (id) DO NOTHING
+            """, nativeQuery = true)
+    int copyItems(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_items WHERE order_id IN (:ids)", nativeQuery = true)
+    int deleteHotItems(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE order_id IN (:ids)", nativeQuery = true)
+    int deleteHotOrders(@Param("ids") Collection<Long> ids);
+}
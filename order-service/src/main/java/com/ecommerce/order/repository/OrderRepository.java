@@ -2,18 +2,68 @@ package com.ecommerce.order.repository;
 
 import com.ecommerce.order.entity.Order;
 import com.ecommerce.order.entity.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order,Long> {
+// The queries below cover the hot tables only; closed orders are moved to the
+// archive after a while (see OrderArchiver and ArchiveAwareOrderReads)
+public interface OrderRepository extends JpaRepository<Order,Long>, ArchiveAwareOrderReads {
     @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.userEmail = :userEmail")
     List<Order> findByUserEmail(@Param("userEmail") String userEmail);
 
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
     Optional<Order> findByIdWithItems(@Param("id") Long id);
 
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findAllWithItems(@Param("ids") Collection<Long> ids);
+
+    // Keyset page for the orphaned-order reaper, served by idx_orders_pending
+    @Query("""
+            SELECT o.id FROM Order o
+            WHERE o.status = :status AND o.id > :afterId AND o.orderDate < :cutoff
+            ORDER BY o.id
+            """)
+    List<Long> findIdsByStatusOlderThan(@Param("status") OrderStatus status,
+                                        @Param("afterId") long afterId,
+                                        @Param("cutoff") LocalDateTime cutoff,
+                                        Limit limit);
+
+    long countByStatusAndOrderDateBefore(OrderStatus status, LocalDateTime cutoff);
+
+    // Locks the orders that are still PENDING, so the rows the reaper updates are
+    // exactly the ones it found PENDING
+    @Query(value = """
+            SELECT order_id FROM orders
+            WHERE order_id IN (:ids) AND status = 'PENDING'
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<Long> lockPending(@Param("ids") Collection<Long> ids);
+
+    // updatedAt from the JVM clock, like Order's @PreUpdate, so that max(updated_at)
+    // behind the order list ETag never mixes the two clocks
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status,
+                     @Param("now") LocalDateTime now);
+
+    // 0 when the order is no longer in the expected status, so that of two callers
+    // racing for the same change only one gets the row
+    @Modifying
+    @Query("""
+            UPDATE Order o SET o.status = :status, o.updatedAt = :now
+            WHERE o.id = :id AND o.status = :expected
+            """)
+    int updateStatusIf(@Param("id") Long id, @Param("expected") OrderStatus expected,
+                       @Param("status") OrderStatus status, @Param("now") LocalDateTime now);
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") Long id);
 }
@@ -0,0 +1,50 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.entity.ReaperCheckpoint;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ReaperCheckpointRepository extends JpaRepository<ReaperCheckpoint, String> {
+
+    // Takes the lease if it is free, expired or already ours; 0 means another instance holds it
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ReaperCheckpoint c
+            SET c.leaseOwner = :owner, c.leaseUntil = :until
+            WHERE c.job = :job
+              AND (c.leaseOwner IS NULL OR c.leaseUntil < :now OR c.leaseOwner = :owner)
+            """)
+    int acquire(@Param("job") String job,
+                @Param("owner") String owner,
+                @Param("until") LocalDateTime until,
+                @Param("now") LocalDateTime now);
+
+    // Moves the cursor and extends the lease; 0 means the lease was lost
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ReaperCheckpoint c
+            SET c.lastOrderId = :lastOrderId, c.leaseUntil = :until, c.updatedAt = :now
+            WHERE c.job = :job AND c.leaseOwner = :owner
+            """)
+    int advance(@Param("job") String job,
+                @Param("owner") String owner,
+                @Param("lastOrderId") long lastOrderId,
+                @Param("until") LocalDateTime until,
+                @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ReaperCheckpoint c
+            SET c.leaseOwner = NULL, c.leaseUntil = NULL
+            WHERE c.job = :job AND c.leaseOwner = :owner
+            """)
+    int release(@Param("job") String job, @Param("owner") String owner);
+}
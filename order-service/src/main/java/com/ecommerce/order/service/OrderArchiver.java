@@ -0,0 +1,114 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.config.GracefulShutdown;
+import com.ecommerce.order.repository.ArchivedOrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves CONFIRMED and CANCELLED orders older than {@code archive-after} from
+ * orders/order_items to orders_archive/order_items_archive, so that the hot tables,
+ * and with them my-orders and the confirm/cancel lookups, stay small. Open orders
+ * are never moved.
+ * <p>
+ * Each batch copies and deletes its orders in one transaction, so an order is always
+ * in exactly one of the two places once the batch commits. The batch is selected
+ * with SKIP LOCKED, so instances running at the same time split the work instead of
+ * queueing behind each other.
+ */
+@Slf4j
+@Component
+public class OrderArchiver {
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final GracefulShutdown gracefulShutdown;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter moved;
+    private final Timer batchTimer;
+
+    @Value("${application.order-archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.order-archive.archive-after:90d}")
+    private Duration archiveAfter;
+
+    @Value("${application.order-archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.order-archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${application.order-archive.pause:200ms}")
+    private Duration pause;
+
+    public OrderArchiver(ArchivedOrderRepository archivedOrderRepository,
+                         GracefulShutdown gracefulShutdown,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry meterRegistry) {
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.gracefulShutdown = gracefulShutdown;
+        this.transactionTemplate = transactionTemplate;
+        this.moved = Counter.builder("order.archive.moved")
+                .description("Closed orders moved from the hot tables to the archive")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("order.archive.batch")
+                .description("Time to move one batch of orders to the archive")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.order-archive.interval:1h}",
+            initialDelayString = "${application.order-archive.initial-delay:5m}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        long total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun && gracefulShutdown.isAccepting(); batch++) {
+            int count = moveBatch(cutoff);
+            total += count;
+            if (count < batchSize) {
+                break;
+            }
+            // Gives the hot tables' other writers room between batches
+            try {
+                Thread.sleep(pause.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} orders closed before {}", total, cutoff);
+        }
+    }
+
+    private int moveBatch(LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        Integer count = transactionTemplate.execute(tx -> {
+            List<Long> ids = archivedOrderRepository.lockClosedBefore(cutoff, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            archivedOrderRepository.copyOrders(ids, LocalDateTime.now());
+            archivedOrderRepository.copyItems(ids);
+            archivedOrderRepository.deleteHotItems(ids);
+            archivedOrderRepository.deleteHotOrders(ids);
+            return ids.size();
+        });
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        moved.increment(count);
+        return count;
+    }
+}
@@ -0,0 +1,271 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.config.GracefulShutdown;
+import com.ecommerce.order.dto.PaymentReconciliation;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.entity.ReaperCheckpoint;
+import com.ecommerce.order.events.OrderStatusBus;
+import com.ecommerce.order.repository.OrderRepository;
+import com.ecommerce.order.repository.ReaperCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settles orders left PENDING because the payment webhook never arrived, or because
+ * the order-service call that would have created the checkout session was cut off.
+ * <p>
+ * Stale PENDING orders are walked in id order, one batch at a time. For each batch,
+ * payment-service reports whether the order was paid. Paid orders are confirmed,
+ * with their stock reduced. Unpaid orders are cancelled. Sessions that are still open,
+ * or that could not be looked up, are left for a later run. Each status is changed
+ * with one bulk update per batch.
+ * <p>
+ * After every batch the cursor is saved in order_reaper_checkpoint, so an interrupted
+ * run carries on where it stopped. Only the instance holding the checkpoint's lease
+ * runs the job. Throughput is capped by {@code max-orders-per-second} so that the
+ * reaper does not crowd out checkouts on the payment provider.
+ */
+@Slf4j
+@Component
+public class OrderReaper {
+
+    private static final String JOB = "orphaned-orders";
+
+    private final OrderRepository orderRepository;
+    private final ReaperCheckpointRepository checkpointRepository;
+    private final PaymentReconciliationClient reconciliationClient;
+    private final OrderService orderService;
+    private final OrderStatusBus orderStatusBus;
+    private final GracefulShutdown gracefulShutdown;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String owner = UUID.randomUUID().toString();
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong cursor = new AtomicLong();
+    private final Timer batchTimer;
+
+    @Value("${application.order-reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.order-reaper.batch-size:100}")
+    private int batchSize;
+
+    @Value("${application.order-reaper.stale-after:25h}")
+    private Duration staleAfter;
+
+    @Value("${application.order-reaper.max-orders-per-second:20}")
+    private double maxOrdersPerSecond;
+
+    @Value("${application.order-reaper.lease:5m}")
+    private Duration lease;
+
+    @Value("${application.order-reaper.call-timeout:60s}")
+    private Duration callTimeout;
+
+    public OrderReaper(OrderRepository orderRepository,
+                       ReaperCheckpointRepository checkpointRepository,
+                       PaymentReconciliationClient reconciliationClient,
+                       OrderService orderService,
+                       OrderStatusBus orderStatusBus,
+                       GracefulShutdown gracefulShutdown,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.reconciliationClient = reconciliationClient;
+        this.orderService = orderService;
+        this.orderStatusBus = orderStatusBus;
+        this.gracefulShutdown = gracefulShutdown;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+
+        this.batchTimer = Timer.builder("order.reaper.batch")
+                .description("Time to reconcile and settle one batch of stale orders")
+                .register(meterRegistry);
+        Gauge.builder("order.reaper.backlog", backlog, AtomicLong::get)
+                .description("Stale PENDING orders left, as of the current or last run")
+                .register(meterRegistry);
+        Gauge.builder("order.reaper.cursor", cursor, AtomicLong::get)
+                .description("Last order id the reaper has finished with")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.order-reaper.interval:5m}",
+            initialDelayString = "${application.order-reaper.initial-delay:1m}")
+    public void run() {
+        if (!enabled || !gracefulShutdown.isAccepting()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (checkpointRepository.acquire(JOB, owner, now.plus(lease), now) == 0) {
+            log.debug("Order reaper lease is held by another instance");
+            return;
+        }
+        try {
+            reap();
+        } finally {
+            checkpointRepository.release(JOB, owner);
+        }
+    }
+
+    private void reap() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+        backlog.set(orderRepository.countByStatusAndOrderDateBefore(OrderStatus.PENDING, cutoff));
+        // Read-write, so the cursor comes from the primary even with a replica configured
+        long afterId = transactionTemplate.execute(tx -> checkpointRepository.findById(JOB)
+                .map(ReaperCheckpoint::getLastOrderId)
+                .orElse(0L));
+        cursor.set(afterId);
+        if (afterId > 0) {
+            log.info("Order reaper resuming after order {}", afterId);
+        }
+
+        while (gracefulShutdown.isAccepting()) {
+            List<Long> ids = orderRepository.findIdsByStatusOlderThan(
+                    OrderStatus.PENDING, afterId, cutoff, Limit.of(batchSize));
+            if (ids.isEmpty()) {
+                // Done; the next run starts over, which picks up the orders left open
+                advance(0L);
+                return;
+            }
+
+            long start = System.nanoTime();
+            List<PaymentReconciliation> results;
+            try {
+                results = reconciliationClient.reconcile(ids).block(callTimeout);
+            } catch (RuntimeException e) {
+                log.warn("Order reaper could not reconcile orders {}..{}, will resume after {}: {}",
+                        ids.get(0), ids.get(ids.size() - 1), afterId, e.getMessage());
+                return;
+            }
+            settle(results);
+
+            afterId = ids.get(ids.size() - 1);
+            if (!advance(afterId)) {
+                log.warn("Order reaper lost its lease after order {}", afterId);
+                return;
+            }
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!throttle(start, ids.size())) {
+                return;
+            }
+        }
+    }
+
+    private void settle(List<PaymentReconciliation> results) {
+        List<Long> paid = new ArrayList<>();
+        List<Long> unpaid = new ArrayList<>();
+        for (PaymentReconciliation result : results) {
+            switch (result.outcome()) {
+                case PAID -> paid.add(result.orderId());
+                case UNPAID -> unpaid.add(result.orderId());
+                case OPEN -> count("open", 1);
+                case UNKNOWN -> count("unknown", 1);
+            }
+        }
+        if (paid.isEmpty() && unpaid.isEmpty()) {
+            return;
+        }
+
+        Settled settled = transactionTemplate.execute(tx -> {
+            List<Long> ids = new ArrayList<>(paid);
+            ids.addAll(unpaid);
+            Set<Long> pending = Set.copyOf(orderRepository.lockPending(ids));
+            List<Long> confirm = paid.stream().filter(pending::contains).toList();
+            List<Long> cancel = unpaid.stream().filter(pending::contains).toList();
+            if (!confirm.isEmpty()) {
+                orderRepository.updateStatus(confirm, OrderStatus.CONFIRMED, LocalDateTime.now());
+            }
+            if (!cancel.isEmpty()) {
+                orderRepository.updateStatus(cancel, OrderStatus.CANCELLED, LocalDateTime.now());
+            }
+            List<Order> confirmed = confirm.isEmpty() ? List.of() : orderRepository.findAllWithItems(confirm);
+            return new Settled(confirmed, cancel, ids.size() - pending.size());
+        });
+
+        settled.cancelled().forEach(id -> orderStatusBus.publish(id, OrderStatus.CANCELLED));
+        settled.confirmed().forEach(order -> orderStatusBus.publish(order.getId(), OrderStatus.CONFIRMED));
+        // Same as a late webhook: the order stays CONFIRMED if the stock cannot be reduced
+        Set<Long> unreduced = Collections.synchronizedSet(new LinkedHashSet<>());
+        settled.confirmed().forEach(order -> unreduced.add(order.getId()));
+        try {
+            Flux.fromIterable(settled.confirmed())
+                    .concatMap(order -> orderService.reduceStock(order)
+                            .onErrorResume(e -> {
+                                log.error("Order {} confirmed by the reaper, but its stock was not reduced: {}",
+                                        order.getId(), e.getMessage());
+                                return Mono.empty();
+                            })
+                            .then(Mono.fromRunnable(() -> unreduced.remove(order.getId()))))
+                    .blockLast(callTimeout);
+        } catch (RuntimeException e) {
+            // The orders are committed CONFIRMED by now, so the batch still counts as settled
+            log.error("Orders {} confirmed by the reaper, but their stock may not have been reduced: {}",
+                    unreduced, e.getMessage());
+        }
+
+        count("confirmed", settled.confirmed().size());
+        count("cancelled", settled.cancelled().size());
+        // Confirmed or cancelled by a webhook since the batch was read
+        count("skipped", settled.skipped());
+        backlog.updateAndGet(left -> Math.max(0, left - settled.confirmed().size() - settled.cancelled().size()));
+    }
+
+    private boolean advance(long lastOrderId) {
+        LocalDateTime now = LocalDateTime.now();
+        cursor.set(lastOrderId);
+        return checkpointRepository.advance(JOB, owner, lastOrderId, now.plus(lease), now) > 0;
+    }
+
+    // Sleeps off the rest of the batch's share of max-orders-per-second
+    private boolean throttle(long start, int orders) {
+        long minimum = (long) (orders / maxOrdersPerSecond * 1_000_000_000L);
+        long remaining = minimum - (System.nanoTime() - start);
+        if (remaining <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void count(String outcome, int orders) {
+        if (orders == 0) {
+            return;
+        }
+        Counter.builder("order.reaper.orders")
+                .description("Stale orders handled by the reaper")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(orders);
+    }
+
+    private record Settled(List<Order> confirmed, List<Long> cancelled, int skipped) {
+    }
+}
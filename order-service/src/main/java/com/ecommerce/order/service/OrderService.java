@@ -1,36 +1,51 @@
 package com.ecommerce.order.service;
 
+import com.ecommerce.order.config.GracefulShutdown;
+import com.ecommerce.order.config.ReplicaRouting;
 import com.ecommerce.order.dto.*;
 import com.ecommerce.order.entity.Order;
 import com.ecommerce.order.entity.OrderItem;
 import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.events.OrderStatusBus;
+import com.ecommerce.order.repository.ArchivedOrderRepository;
 import com.ecommerce.order.repository.OrderRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderService {
     private final OrderRepository orderRepository;
     private final WebClient productWebClient;
-    private final WebClient stripeWebClient;
     private final WebClient.Builder webClientBuilder;
+    private final OrderStatusBus orderStatusBus;
+    private final GracefulShutdown gracefulShutdown;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ReplicaRouting replicaRouting;
+    private final TransactionTemplate transactionTemplate;
     @Value("${application.payment-service.url}")
     private String paymentServiceUrl;
 
     public Mono<OrderResponse> placeOrder(OrderRequest request, String userEmail, String token) {
-        return Flux.fromIterable(request.items())
+        return gracefulShutdown.track("placeOrder", Flux.fromIterable(request.items())
                 .flatMap(itemReq -> productWebClient.get()
                         .uri("/api/products/{id}", itemReq.productId())
                         .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
@@ -46,6 +61,8 @@ public class OrderService {
                 .collectList()
                 .flatMap(validatedItems -> {
                     return saveFullOrder(validatedItems, userEmail, "PENDING", OrderStatus.PENDING)
+                            // cut off after this point, the order stays PENDING without a payment session
+                            .delayUntil(savedOrder -> GracefulShutdown.describe("PENDING order " + savedOrder.getId()))
                             .flatMap(savedOrder -> {
 
                                 PaymentRequest paymentReq = new PaymentRequest(
@@ -63,40 +80,58 @@ public class OrderService {
                                         .bodyToMono(String.class)
                                         .map(stripeUrl -> mapToResponseWithUrl(savedOrder, stripeUrl));
                             });
-                });
+                }));
     }
 
-    @Transactional
+    /**
+     * Confirms a PENDING order and then reduces its stock. Only the caller whose update
+     * moves the order out of PENDING reduces the stock, so a retried webhook racing the
+     * reaper cannot reduce it twice. An order already CONFIRMED completes empty. One the
+     * reaper CANCELLED stays cancelled and is answered with 409: its payment arrived after
+     * the checkout session was given up and has to be refunded.
+     */
     public Mono<Void> confirmOrder(Long id) {
-        return Mono.fromCallable(() -> {
-                    Order order = orderRepository.findById(id)
-                            .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
-
-                    if(order.getStatus() == OrderStatus.CONFIRMED) {
-                        return order;
+        return gracefulShutdown.track("confirmOrder", Mono.fromCallable(() -> transactionTemplate.execute(tx -> {
+                    if (orderRepository.updateStatusIf(id, OrderStatus.PENDING, OrderStatus.CONFIRMED, LocalDateTime.now()) == 1) {
+                        return orderRepository.findByIdWithItems(id).orElseThrow();
                     }
-
-                    order.setStatus(OrderStatus.CONFIRMED);
-                    return orderRepository.save(order);
-                })
+                    OrderStatus status = orderRepository.findStatusById(id)
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found with id: " + id));
+                    if (status == OrderStatus.CANCELLED) {
+                        log.error("Payment confirmed for order {}, which was already cancelled; it needs a refund", id);
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Order " + id + " was cancelled before its payment arrived");
+                    }
+                    return null;
+                }))
                 .subscribeOn(Schedulers.boundedElastic())
-                .flatMap(savedOrder -> {
-                    List<OrderItemRequest> items = savedOrder.getItems().stream()
-                            .map(i -> new OrderItemRequest(i.getProductId(), i.getQuantity()))
-                            .toList();
-                    return reduceAllStock(items);
+                .doOnNext(confirmed -> {
+                    replicaRouting.recordWrite(confirmed.getUserEmail());
+                    orderStatusBus.publish(confirmed);
                 })
-                .then();
+                .delayUntil(confirmed -> GracefulShutdown.describe("CONFIRMED order " + confirmed.getId() + ", stock not yet reduced"))
+                .flatMap(this::reduceStock)
+                .then());
+    }
+
+    /** Reduces product stock by the order's items; the order must have its items loaded. */
+    Mono<Void> reduceStock(Order order) {
+        List<OrderItemRequest> items = order.getItems().stream()
+                .map(i -> new OrderItemRequest(i.getProductId(), i.getQuantity()))
+                .toList();
+        return reduceAllStock(items);
     }
 
     @Transactional
     public Mono<Void> cancelOrder(Long id) {
-        return Mono.fromCallable(() -> {
+        return Mono.fromCallable(() -> replicaRouting.onPrimary(() -> {
             Order order = orderRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Order not found"));
             order.setStatus(OrderStatus.CANCELLED);
-            return orderRepository.save(order);
-        })
+            Order saved = orderRepository.save(order);
+            replicaRouting.recordWrite(saved.getUserEmail());
+            orderStatusBus.publish(saved);
+            return saved;
+        }))
                 .subscribeOn(Schedulers.boundedElastic())
                 .then();
     }
@@ -119,6 +154,7 @@ public class OrderService {
             }
 
             Order savedOrder = orderRepository.save(order);
+            replicaRouting.recordWrite(userEmail);
 
             return savedOrder;
         }).subscribeOn(Schedulers.boundedElastic());
@@ -136,18 +172,54 @@ public class OrderService {
                 .then();
     }
     public Flux<OrderResponse> getOrdersByUser(String email) {
-        return Mono.fromCallable(() -> orderRepository.findByUserEmail(email))
+        return Mono.fromCallable(() -> replicaRouting.readOnly(email,
+                        () -> orderRepository.findByUserEmailIncludingArchive(email)))
                 .subscribeOn(Schedulers.boundedElastic())
                 .flatMapMany(Flux::fromIterable)
                 .map(this::mapToResponse);
     }
 
+    /** Validators of getOrdersByUser; read first, so the orders sent are never older than them. */
+    public Mono<ResourceVersion> getOrdersVersion(String email) {
+        return Mono.fromCallable(() -> replicaRouting.readOnly(email,
+                        () -> orderRepository.findVersionByUserEmailIncludingArchive(email)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Current status of the order followed by its live changes, ending with the first
+     * terminal status. Only the order's owner may watch it.
+     */
+    public Flux<OrderStatusEvent> streamStatus(Long id, String userEmail) {
+        Mono<OrderStatusEvent> current = Mono.fromCallable(() -> replicaRouting.readOnly(userEmail,
+                                () -> orderRepository.findByIdIncludingArchive(id))
+                        .filter(order -> order.getUserEmail().equals(userEmail))
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found")))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(order -> new OrderStatusEvent(order.getId(), order.getStatus(), LocalDateTime.now()));
+
+        // Listen before reading so a change committed in between is not lost; the
+        // status only moves forward, so ending at the first terminal status is safe
+        // whichever of the two arrives first.
+        return orderStatusBus.updates(id)
+                .mergeWith(current)
+                .distinctUntilChanged(OrderStatusEvent::status)
+                .takeUntil(OrderStatusEvent::terminal);
+    }
+
     public Mono<Order> getOrderById(Long id) {
-        return Mono.fromCallable(() -> orderRepository.findByIdWithItems(id)
+        return Mono.fromCallable(() -> replicaRouting.readOnly(null, () -> orderRepository.findByIdIncludingArchive(id))
                         .orElseThrow(() -> new RuntimeException("Order not found with id: " + id)))
                 .subscribeOn(Schedulers.boundedElastic());
     }
 
+    /** Orders and revenue per day and status from the archive, for [from, to). */
+    public Flux<ArchiveReportRow> archiveReport(LocalDate from, LocalDate to) {
+        return Mono.fromCallable(() -> archivedOrderRepository.report(from.atStartOfDay(), to.atStartOfDay()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(Flux::fromIterable);
+    }
+
 
     private record ValidatedItem(OrderItemRequest req, ProductResponse res) {}
     public OrderResponse mapToResponse(Order order) {
@@ -0,0 +1,30 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.PaymentReconciliation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Asks payment-service whether orders were paid. payment-service checks its own
+ * records first and only asks the payment provider about sessions still open.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentReconciliationClient {
+
+    private final WebClient paymentWebClient;
+
+    public Mono<List<PaymentReconciliation>> reconcile(List<Long> orderIds) {
+        return paymentWebClient.post()
+                .uri("/api/payments/reconcile")
+                .header("X-Internal-Secret", "my-app-secret-123")
+                .bodyValue(orderIds)
+                .retrieve()
+                .bodyToFlux(PaymentReconciliation.class)
+                .collectList();
+    }
+}
@@ -0,0 +1,34 @@
+-- Baseline schema for order-service. Written with IF NOT EXISTS so it also applies
+-- cleanly to databases that were previously managed by hibernate ddl-auto.
+
+CREATE TABLE IF NOT EXISTS orders (
+    order_id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_email   VARCHAR(255),
+    total_amount BIGINT,
+    status       VARCHAR(255),
+    order_date   TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id        BIGINT,
+    quantity          INTEGER,
+    price_at_purchase BIGINT,
+    item_subtotal     BIGINT,
+    order_id          BIGINT REFERENCES orders (order_id)
+);
+
+-- The payments table is shared with payment-service (see its V1 migration), so
+-- order-service only makes sure the columns it maps are present.
+CREATE TABLE IF NOT EXISTS payments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY
+);
+
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS stripe_payment_intent_id VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS order_id_fk BIGINT REFERENCES orders (order_id);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS amount BIGINT;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS currency VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS payment_status VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS processed_at TIMESTAMP(6);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_payments_stripe_payment_intent_id ON payments (stripe_payment_intent_id);
@@ -0,0 +1,8 @@
+-- findByUserEmail (my-orders)
+CREATE INDEX IF NOT EXISTS idx_orders_user_email ON orders (user_email);
+
+-- LEFT JOIN FETCH o.items in findByUserEmail / findByIdWithItems
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
+
+-- PaymentRepository.findByOrder_Id
+CREATE INDEX IF NOT EXISTS idx_payments_order_id_fk ON payments (order_id_fk);
@@ -0,0 +1,17 @@
+-- Progress and lease of the orphaned-order reaper (OrderReaper). last_order_id is the
+-- keyset cursor: a run that is interrupted resumes after it, and only the instance
+-- holding the lease works on the job.
+CREATE TABLE IF NOT EXISTS order_reaper_checkpoint (
+    job           VARCHAR(64)  PRIMARY KEY,
+    last_order_id BIGINT       NOT NULL DEFAULT 0,
+    lease_owner   VARCHAR(64),
+    lease_until   TIMESTAMP(6),
+    updated_at    TIMESTAMP(6)
+);
+
+INSERT INTO order_reaper_checkpoint (job, last_order_id)
+VALUES ('orphaned-orders', 0)
+ON CONFLICT (job) DO NOTHING;
+
+-- The reaper walks PENDING orders by id; they are a small part of the table
+CREATE INDEX IF NOT EXISTS idx_orders_pending ON orders (order_id, order_date) WHERE status = 'PENDING';
@@ -0,0 +1,31 @@
+-- Closed orders older than application.order-archive.archive-after are moved here by
+-- OrderArchiver, keeping their ids, so that orders/order_items only hold recent and
+-- open orders. Reads that span both go through ArchiveAwareOrderReads.
+CREATE TABLE IF NOT EXISTS orders_archive (
+    order_id     BIGINT PRIMARY KEY,
+    user_email   VARCHAR(255),
+    total_amount BIGINT,
+    status       VARCHAR(255),
+    order_date   TIMESTAMP(6),
+    archived_at  TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_items_archive (
+    id                BIGINT PRIMARY KEY,
+    product_id        BIGINT,
+    quantity          INTEGER,
+    price_at_purchase BIGINT,
+    item_subtotal     BIGINT,
+    order_id          BIGINT NOT NULL REFERENCES orders_archive (order_id)
+);
+
+-- my-orders and the item fetch, as on the hot tables
+CREATE INDEX IF NOT EXISTS idx_orders_archive_user_email ON orders_archive (user_email);
+CREATE INDEX IF NOT EXISTS idx_order_items_archive_order_id ON order_items_archive (order_id);
+
+-- Date ranges of the archive report
+CREATE INDEX IF NOT EXISTS idx_orders_archive_order_date ON orders_archive (order_date);
+
+-- The archiver's scan for closed orders by age
+CREATE INDEX IF NOT EXISTS idx_orders_closed_order_date ON orders (order_date)
+    WHERE status IN ('CONFIRMED', 'CANCELLED');
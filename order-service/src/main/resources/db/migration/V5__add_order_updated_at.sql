@@ -0,0 +1,8 @@
+-- When an order last changed, for the Last-Modified and ETag of my-orders. Set by
+-- Order's callbacks and by the reaper's bulk status update, and copied along when the
+-- archiver moves an order. Existing orders start from their order date.
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
+UPDATE orders SET updated_at = order_date WHERE updated_at IS NULL;
+
+ALTER TABLE orders_archive ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
+UPDATE orders_archive SET updated_at = order_date WHERE updated_at IS NULL;
@@ -0,0 +1,199 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.config.GracefulShutdown;
+import com.ecommerce.order.dto.PaymentReconciliation;
+import com.ecommerce.order.dto.PaymentReconciliation.Outcome;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.entity.ReaperCheckpoint;
+import com.ecommerce.order.events.OrderStatusBus;
+import com.ecommerce.order.repository.OrderRepository;
+import com.ecommerce.order.repository.ReaperCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderReaperTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final ReaperCheckpointRepository checkpointRepository = mock(ReaperCheckpointRepository.class);
+    private final PaymentReconciliationClient reconciliationClient = mock(PaymentReconciliationClient.class);
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderStatusBus orderStatusBus = mock(OrderStatusBus.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OrderReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        reaper = new OrderReaper(orderRepository, checkpointRepository, reconciliationClient, orderService,
+                orderStatusBus, new GracefulShutdown(), transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(reaper, "enabled", true);
+        ReflectionTestUtils.setField(reaper, "batchSize", 3);
+        ReflectionTestUtils.setField(reaper, "staleAfter", Duration.ofHours(25));
+        ReflectionTestUtils.setField(reaper, "maxOrdersPerSecond", 1000.0);
+        ReflectionTestUtils.setField(reaper, "lease", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(reaper, "callTimeout", Duration.ofSeconds(5));
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(checkpointRepository.acquire(anyString(), anyString(), any(), any())).thenReturn(1);
+        when(checkpointRepository.advance(anyString(), anyString(), anyLong(), any(), any())).thenReturn(1);
+        when(checkpointRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(orderService.reduceStock(any())).thenReturn(Mono.empty());
+        when(orderRepository.findAllWithItems(any())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().map(OrderReaperTest::order).toList());
+    }
+
+    @Test
+    void settlesPaidAndUnpaidOrdersAndSkipsTheOnesAWebhookSettled() {
+        batches(List.of(1L, 2L, 3L));
+        reconciled(List.of(1L, 2L, 3L), paid(1L), unpaid(2L), paid(3L));
+        // order 3 was confirmed by its webhook while payment-service was asked
+        when(orderRepository.lockPending(any())).thenReturn(List.of(1L, 2L));
+
+        reaper.run();
+
+        verify(orderRepository).updateStatus(eq(List.of(1L)), eq(OrderStatus.CONFIRMED), any());
+        verify(orderRepository).updateStatus(eq(List.of(2L)), eq(OrderStatus.CANCELLED), any());
+        verify(orderService).reduceStock(any());
+        verify(orderStatusBus).publish(1L, OrderStatus.CONFIRMED);
+        verify(orderStatusBus).publish(2L, OrderStatus.CANCELLED);
+        verify(orderStatusBus, never()).publish(eq(3L), any());
+        assertThat(settled("confirmed")).isEqualTo(1);
+        assertThat(settled("cancelled")).isEqualTo(1);
+        assertThat(settled("skipped")).isEqualTo(1);
+
+        verify(checkpointRepository).advance(anyString(), anyString(), eq(3L), any(), any());
+        verify(checkpointRepository).advance(anyString(), anyString(), eq(0L), any(), any());
+        verify(checkpointRepository).release(anyString(), anyString());
+    }
+
+    @Test
+    void openAndUnknownSessionsAreLeftForALaterRun() {
+        batches(List.of(1L, 2L));
+        reconciled(List.of(1L, 2L), new PaymentReconciliation(1L, Outcome.OPEN),
+                new PaymentReconciliation(2L, Outcome.UNKNOWN));
+
+        reaper.run();
+
+        verify(orderRepository, never()).lockPending(any());
+        assertThat(settled("open")).isEqualTo(1);
+        assertThat(settled("unknown")).isEqualTo(1);
+    }
+
+    @Test
+    void resumesAfterTheSavedCursor() {
+        ReaperCheckpoint checkpoint = new ReaperCheckpoint();
+        checkpoint.setLastOrderId(42L);
+        when(checkpointRepository.findById(anyString())).thenReturn(Optional.of(checkpoint));
+        when(orderRepository.findIdsByStatusOlderThan(eq(OrderStatus.PENDING), anyLong(), any(), any()))
+                .thenReturn(List.of());
+
+        reaper.run();
+
+        verify(orderRepository).findIdsByStatusOlderThan(eq(OrderStatus.PENDING), eq(42L), any(), any());
+    }
+
+    @Test
+    void failedReconcileKeepsTheCursor() {
+        batches(List.of(1L, 2L));
+        when(reconciliationClient.reconcile(List.of(1L, 2L))).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        reaper.run();
+
+        verify(checkpointRepository, never()).advance(anyString(), anyString(), anyLong(), any(), any());
+        verify(checkpointRepository).release(anyString(), anyString());
+    }
+
+    @Test
+    void stopsWhenTheLeaseIsLost() {
+        batches(List.of(1L), List.of(2L));
+        reconciled(List.of(1L), unpaid(1L));
+        when(orderRepository.lockPending(any())).thenReturn(List.of(1L));
+        when(checkpointRepository.advance(anyString(), anyString(), anyLong(), any(), any())).thenReturn(0);
+
+        reaper.run();
+
+        verify(orderRepository).findIdsByStatusOlderThan(any(), anyLong(), any(), any());
+        verify(reconciliationClient, never()).reconcile(List.of(2L));
+    }
+
+    @Test
+    void runsOnlyWithTheLease() {
+        when(checkpointRepository.acquire(anyString(), anyString(), any(), any())).thenReturn(0);
+
+        reaper.run();
+
+        verify(orderRepository, never()).findIdsByStatusOlderThan(any(), anyLong(), any(), any());
+        verify(checkpointRepository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void stockReductionTimeoutDoesNotUndoTheBatch() {
+        ReflectionTestUtils.setField(reaper, "callTimeout", Duration.ofMillis(50));
+        batches(List.of(1L, 2L));
+        reconciled(List.of(1L, 2L), paid(1L), paid(2L));
+        when(orderRepository.lockPending(any())).thenReturn(List.of(1L, 2L));
+        when(orderService.reduceStock(any())).thenReturn(Mono.never());
+
+        reaper.run();
+
+        assertThat(settled("confirmed")).isEqualTo(2);
+        verify(checkpointRepository).advance(anyString(), anyString(), eq(2L), any(), any());
+        verify(checkpointRepository).release(anyString(), anyString());
+    }
+
+    // Each list is one page of stale PENDING ids; an empty page ends the run
+    @SafeVarargs
+    private void batches(List<Long>... pages) {
+        var stub = when(orderRepository.findIdsByStatusOlderThan(eq(OrderStatus.PENDING), anyLong(), any(), any()));
+        for (List<Long> page : pages) {
+            stub = stub.thenReturn(page);
+        }
+        stub.thenReturn(List.of());
+    }
+
+    private void reconciled(List<Long> ids, PaymentReconciliation... results) {
+        when(reconciliationClient.reconcile(ids)).thenReturn(Mono.just(List.of(results)));
+    }
+
+    private double settled(String outcome) {
+        var counter = meterRegistry.find("order.reaper.orders").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static PaymentReconciliation paid(Long id) {
+        return new PaymentReconciliation(id, Outcome.PAID);
+    }
+
+    private static PaymentReconciliation unpaid(Long id) {
+        return new PaymentReconciliation(id, Outcome.UNPAID);
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(OrderStatus.CONFIRMED);
+        return order;
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.payment.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Drains checkout-session calls and inbox webhook processing on shutdown: waits up to
+ * {@code application.shutdown.drain-timeout} for the chains wrapped in {@link #track},
+ * runs the {@link #afterDrain} callbacks, and logs each chain that did not finish.
+ */
+@Slf4j
+@Component
+public class GracefulShutdown implements SmartLifecycle, ApplicationListener<ContextClosedEvent> {
+
+    private final Set<Operation> inFlight = ConcurrentHashMap.newKeySet();
+    private final Queue<Operation> cancelled = new ConcurrentLinkedQueue<>();
+    private final List<Runnable> flushes = new CopyOnWriteArrayList<>();
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+
+    @Value("${application.shutdown.drain-timeout:10s}")
+    private Duration drainTimeout;
+
+    /** Tracks the chain until it ends; a cancel once shutdown has begun counts as abandoned. */
+    public <T> Mono<T> track(String name, Mono<T> work) {
+        return Mono.defer(() -> {
+            Operation operation = new Operation(name, System.nanoTime());
+            inFlight.add(operation);
+            return work
+                    .contextWrite(context -> context.put(Operation.class, operation))
+                    .doFinally(signal -> {
+                        inFlight.remove(operation);
+                        if (signal == SignalType.CANCEL && !accepting) {
+                            cancelled.add(operation);
+                        }
+                    });
+        });
+    }
+
+    /** Records how far the enclosing tracked chain got, for the abandoned-work log. */
+    public static Mono<Void> describe(String progress) {
+        return Mono.deferContextual(context -> {
+            context.<Operation>getOrEmpty(Operation.class).ifPresent(operation -> operation.progress = progress);
+            return Mono.empty();
+        });
+    }
+
+    /** Runs once the tracked chains have drained or timed out. */
+    public void afterDrain(Runnable flush) {
+        flushes.add(flush);
+    }
+
+    /** False once shutdown has begun; the inbox worker stops claiming events. */
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        accepting = false;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        accepting = false;
+        long start = System.nanoTime();
+        long deadline = start + drainTimeout.toNanos();
+        int draining = inFlight.size();
+        try {
+            while (!inFlight.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Runnable flush : flushes) {
+            try {
+                flush.run();
+            } catch (RuntimeException e) {
+                log.error("Shutdown flush failed", e);
+            }
+        }
+
+        List<Operation> abandoned = new ArrayList<>(cancelled);
+        abandoned.addAll(inFlight);
+        for (Operation operation : abandoned) {
+            log.atWarn()
+                    .addKeyValue("operation", operation.name)
+                    .addKeyValue("progress", operation.progress)
+                    .addKeyValue("ageMs", (System.nanoTime() - operation.startedAt) / 1_000_000)
+                    .log("Abandoned {} at shutdown ({})", operation.name,
+                            operation.progress != null ? operation.progress : "no progress recorded");
+        }
+        log.info("Shutdown drain finished in {} ms: {} in flight when it started, {} abandoned",
+                (System.nanoTime() - start) / 1_000_000, draining, abandoned.size());
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+
+    private static final class Operation {
+        private final String name;
+        private final long startedAt;
+        private volatile String progress;
+
+        Operation(String name, long startedAt) {
+            this.name = name;
+            this.startedAt = startedAt;
+        }
+    }
+}
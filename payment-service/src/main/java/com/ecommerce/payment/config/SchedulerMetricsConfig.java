@@ -0,0 +1,72 @@
+package com.ecommerce.payment.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wait time, running tasks and capacity of boundedElastic, which carries payment-service's
+ * repository calls and the webhook inbox worker.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class SchedulerMetricsConfig {
+
+    private static final String HOOK_KEY = "scheduler-metrics";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger active = new AtomicInteger();
+    private Timer wait;
+
+    @PostConstruct
+    public void install() {
+        wait = Timer.builder("reactor.scheduler.task.wait")
+                .description("Time a task waited between being scheduled and starting to run")
+                .tag("scheduler", "boundedElastic")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("reactor.scheduler.tasks.active", active, AtomicInteger::get)
+                .description("Tasks currently running on the scheduler")
+                .tag("scheduler", "boundedElastic")
+                .register(meterRegistry);
+        Gauge.builder("reactor.scheduler.capacity", () -> Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE)
+                .description("Maximum number of boundedElastic threads")
+                .tag("scheduler", "boundedElastic")
+                .register(meterRegistry);
+        Schedulers.onScheduleHook(HOOK_KEY, this::instrument);
+    }
+
+    @PreDestroy
+    public void uninstall() {
+        Schedulers.resetOnScheduleHook(HOOK_KEY);
+    }
+
+    private Runnable instrument(Runnable task) {
+        long scheduledAt = System.nanoTime();
+        AtomicBoolean started = new AtomicBoolean();
+        return () -> {
+            if (!Thread.currentThread().getName().startsWith("boundedElastic-")) {
+                task.run();
+                return;
+            }
+            if (started.compareAndSet(false, true)) {
+                wait.record(System.nanoTime() - scheduledAt, TimeUnit.NANOSECONDS);
+            }
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.payment.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +15,7 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtGra
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import javax.crypto.spec.SecretKeySpec;
 import java.util.Base64;
@@ -32,6 +35,8 @@ public class SecurityConfig {
                 .authorizeExchange(exchanges -> exchanges
                         // CRITICAL: Stripe Webhook must be public!
                         .pathMatchers("/api/payments/webhook").permitAll()
+                        // Service-to-service, checked against X-Internal-Secret
+                        .pathMatchers("/api/payments/reconcile").permitAll()
                         .pathMatchers("/api/payments/**").authenticated()
                         .anyExchange().permitAll()
                 )
@@ -42,12 +47,28 @@ public class SecurityConfig {
     }
 
     @Bean
-    public ReactiveJwtDecoder jwtDecoder() {
+    public ReactiveJwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
         byte[] keyBytes = Base64.getDecoder().decode(secretKey);
         SecretKeySpec spec = new SecretKeySpec(keyBytes, "HmacSHA384");
-        return NimbusReactiveJwtDecoder.withSecretKey(spec)
+        ReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withSecretKey(spec)
                 .macAlgorithm(MacAlgorithm.HS384)
                 .build();
+
+        Timer valid = jwtVerificationTimer(meterRegistry, "valid");
+        Timer invalid = jwtVerificationTimer(meterRegistry, "invalid");
+        return token -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return decoder.decode(token)
+                    .doOnSuccess(jwt -> sample.stop(valid))
+                    .doOnError(e -> sample.stop(invalid));
+        });
+    }
+
+    private static Timer jwtVerificationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Time to verify a JWT and parse its claims")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Bean
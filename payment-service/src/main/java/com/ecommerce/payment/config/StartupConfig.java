@@ -0,0 +1,27 @@
+package com.ecommerce.payment.config;
+
+import com.ecommerce.payment.service.WebhookInboxWorker;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+/**
+ * Beans that stay eager when the startup profile turns on lazy initialization.
+ * Nothing injects the inbox worker or StripeConfig, so lazily they would never
+ * be created: webhooks would not be processed and the Stripe key never set.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                FlywayMigrationInitializer.class,
+                LocalContainerEntityManagerFactoryBean.class,
+                SchedulerMetricsConfig.class,
+                StripeConfig.class,
+                WebhookInboxWorker.class);
+    }
+}
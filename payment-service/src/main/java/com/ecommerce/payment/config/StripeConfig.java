@@ -5,14 +5,23 @@ import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class StripeConfig {
 
     @Value("${stripe.api.key}")
     private String apiKey;
 
+    // Keep the SDK's own socket timeouts within the bulkhead's call timeout so a
+    // timed-out call also gives its payment-gateway thread back
+    @Value("${application.payment-gateway.bulkhead.call-timeout:10s}")
+    private Duration callTimeout;
+
     @PostConstruct
     public void setup() {
         Stripe.apiKey = apiKey;
+        Stripe.setConnectTimeout((int) Math.min(Stripe.DEFAULT_CONNECT_TIMEOUT, callTimeout.toMillis()));
+        Stripe.setReadTimeout((int) callTimeout.toMillis());
     }
 }
\ No newline at end of file
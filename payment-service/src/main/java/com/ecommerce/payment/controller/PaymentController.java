@@ -1,11 +1,17 @@
 package com.ecommerce.payment.controller;
 
+import com.ecommerce.payment.dto.PaymentReconciliation;
 import com.ecommerce.payment.dto.PaymentRequest;
 import com.ecommerce.payment.service.PaymentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/payments")
 @RequiredArgsConstructor
@@ -13,8 +19,27 @@ public class PaymentController {
 
     private final PaymentService paymentService;
 
+    @Value("${application.reconciliation.max-batch-size:500}")
+    private int maxReconcileBatchSize;
+
     @PostMapping("/create-session")
     public Mono<String> createSession(@RequestBody PaymentRequest request) {
         return paymentService.createCheckoutSession(request);
     }
-}
\ No newline at end of file
+
+    // Called by order-service's orphaned-order reaper, never by clients
+    @PostMapping("/reconcile")
+    public Mono<List<PaymentReconciliation>> reconcile(
+            @RequestBody List<Long> orderIds,
+            @RequestHeader(value = "X-Internal-Secret", required = false) String secret) {
+
+        if (!"my-app-secret-123".equals(secret)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        }
+        if (orderIds.size() > maxReconcileBatchSize) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxReconcileBatchSize + " orders per call"));
+        }
+        return paymentService.reconcile(orderIds);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.payment.controller;
+
+import com.ecommerce.payment.gateway.SimulatedPaymentGateway;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+// Hosted "checkout page" of the local Stripe simulator
+@RestController
+@RequestMapping("/simulator/checkout")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.payment-gateway.provider", havingValue = "simulator")
+public class SimulatorController {
+
+    private final SimulatedPaymentGateway simulatedPaymentGateway;
+
+    @GetMapping("/{sessionId}")
+    public Mono<String> checkout(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) String outcome) {
+
+        Boolean forceSuccess = outcome == null ? null : "success".equalsIgnoreCase(outcome);
+        return simulatedPaymentGateway.complete(sessionId, forceSuccess)
+                .map(success -> success ? "Payment succeeded" : "Payment failed")
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or completed session")));
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.payment.dto;
+
+/**
+ * Whether an order was paid, as far as payment-service and the provider know.
+ * UNKNOWN means the provider could not be asked; the caller should try again later.
+ */
+public record PaymentReconciliation(
+        Long orderId,
+        Outcome outcome
+) {
+    public enum Outcome {
+        PAID,
+        UNPAID,
+        OPEN,
+        UNKNOWN
+    }
+}
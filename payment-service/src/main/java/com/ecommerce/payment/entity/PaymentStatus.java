@@ -3,5 +3,7 @@ package com.ecommerce.payment.entity;
 public enum PaymentStatus {
     PENDING,
     SUCCEEDED,
-    FAILED
+    FAILED,
+    // The checkout session expired without a payment, found by reconciliation
+    EXPIRED
 }
@@ -0,0 +1,9 @@
+package com.ecommerce.payment.entity;
+
+public enum WebhookEventStatus {
+    RECEIVED,
+    PROCESSING,
+    RETRY,
+    PROCESSED,
+    DEAD
+}
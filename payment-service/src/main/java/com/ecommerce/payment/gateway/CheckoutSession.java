@@ -0,0 +1,7 @@
+package com.ecommerce.payment.gateway;
+
+public record CheckoutSession(
+        String id,
+        String url
+) {
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.payment.gateway;
+
+/**
+ * Where a checkout session stands with the provider. The payment intent id is only
+ * set once the session is paid.
+ */
+public record CheckoutSessionStatus(
+        State state,
+        String paymentIntentId
+) {
+    public enum State {
+        OPEN,
+        PAID,
+        EXPIRED
+    }
+}
@@ -0,0 +1,168 @@
+package com.ecommerce.payment.gateway;
+
+import com.ecommerce.concurrency.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Isolates calls to the payment provider from the rest of the service. Calls run on
+ * their own bounded scheduler instead of the shared boundedElastic pool, are capped
+ * by an adaptive concurrency limit and time out individually. Calls over the limit
+ * fail straight away with GatewaySaturatedException rather than waiting for a thread.
+ */
+@Slf4j
+@Component
+public class GatewayBulkhead {
+
+    private final Scheduler scheduler;
+    private final AdaptiveConcurrencyLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Duration callTimeout;
+    private final Duration retryAfter;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final Counter rejectedByLimit;
+    private final Counter rejectedByQueue;
+
+    public GatewayBulkhead(
+            MeterRegistry meterRegistry,
+            ObservationRegistry observationRegistry,
+            @Value("${application.payment-gateway.bulkhead.max-threads:32}") int maxThreads,
+            @Value("${application.payment-gateway.bulkhead.queued-tasks:64}") int queuedTasks,
+            @Value("${application.payment-gateway.bulkhead.initial-limit:10}") int initialLimit,
+            @Value("${application.payment-gateway.bulkhead.min-limit:2}") int minLimit,
+            @Value("${application.payment-gateway.bulkhead.latency-threshold:2s}") Duration latencyThreshold,
+            @Value("${application.payment-gateway.bulkhead.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${application.payment-gateway.bulkhead.call-timeout:10s}") Duration callTimeout,
+            @Value("${application.payment-gateway.bulkhead.retry-after:2s}") Duration retryAfter) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.scheduler = Schedulers.newBoundedElastic(maxThreads, queuedTasks, "payment-gateway");
+        this.limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxThreads,
+                latencyThreshold.toNanos(), backoffRatio);
+        this.callTimeout = callTimeout;
+        this.retryAfter = retryAfter;
+
+        Gauge.builder("payment.gateway.inflight", inFlight, AtomicInteger::get)
+                .description("Calls to the payment provider currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit for the payment provider")
+                .register(meterRegistry);
+        this.rejectedByLimit = rejectedCounter("limit");
+        this.rejectedByQueue = rejectedCounter("queue");
+    }
+
+    public <T> Mono<T> execute(Callable<T> call) {
+        return execute("create-session", call);
+    }
+
+    /** Runs the call under the bulkhead; the operation names its span, e.g. "session-status". */
+    public <T> Mono<T> execute(String operation, Callable<T> call) {
+        return Mono.deferContextual(context -> {
+            if (!tryAcquire()) {
+                rejectedByLimit.increment();
+                return Mono.error(new GatewaySaturatedException(retryAfter));
+            }
+            Observation parent = context.<Observation>getOrEmpty(ObservationThreadLocalAccessor.KEY)
+                    .orElseGet(observationRegistry::getCurrentObservation);
+            long start = System.nanoTime();
+            AtomicBoolean released = new AtomicBoolean();
+            return Mono.fromCallable(() -> observe(operation, call, parent))
+                    .subscribeOn(scheduler)
+                    .timeout(callTimeout)
+                    .doOnSuccess(result -> release(released, start, "success"))
+                    .doOnError(e -> release(released, start, outcomeOf(e)))
+                    .doOnCancel(() -> release(released, start, null))
+                    .onErrorMap(RejectedExecutionException.class, e -> {
+                        rejectedByQueue.increment();
+                        return new GatewaySaturatedException(retryAfter);
+                    })
+                    .onErrorMap(TimeoutException.class, e -> new ResponseStatusException(
+                            HttpStatus.GATEWAY_TIMEOUT, "Payment provider did not respond in time"));
+        });
+    }
+
+    // Span around the provider call, opened on the payment-gateway thread so the call
+    // (and TraceMetadata) sees it as the current span
+    private <T> T observe(String operation, Callable<T> call, Observation parent) throws Exception {
+        return Observation.createNotStarted("payment.gateway.call", observationRegistry)
+                .contextualName("payment-gateway " + operation)
+                .parentObservation(parent)
+                .observeChecked(call::call);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Exactly once per call: a cancel can race the success or error, or follow it.
+    // A cancelled call (outcome null) gives its slot back without a sample.
+    private void release(AtomicBoolean released, long start, String outcome) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        if (outcome == null) {
+            inFlight.decrementAndGet();
+            return;
+        }
+        long latency = System.nanoTime() - start;
+        // Timeouts and a full scheduler mean the provider is falling behind; a fast
+        // error from it (bad request, declined card) says nothing about load
+        boolean dropped = "timeout".equals(outcome) || "rejected".equals(outcome);
+        limit.onSample(latency, inFlight.getAndDecrement(), dropped);
+        Timer.builder("payment.gateway.latency")
+                .description("Latency of calls to the payment provider")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(latency));
+    }
+
+    private String outcomeOf(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        return e instanceof RejectedExecutionException ? "rejected" : "error";
+    }
+
+    private Counter rejectedCounter(String reason) {
+        return Counter.builder("payment.gateway.rejected")
+                .description("Calls to the payment provider rejected without being attempted")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
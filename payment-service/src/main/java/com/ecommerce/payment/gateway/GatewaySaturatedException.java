@@ -0,0 +1,28 @@
+package com.ecommerce.payment.gateway;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of queueing when the payment provider is at its concurrency limit.
+ * Rendered as 503 with a Retry-After header so callers back off.
+ */
+public class GatewaySaturatedException extends ResponseStatusException {
+
+    private final Duration retryAfter;
+
+    public GatewaySaturatedException(Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Payment provider is busy, retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        return headers;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.payment.gateway;
+
+import com.ecommerce.payment.dto.PaymentRequest;
+
+/**
+ * Creates hosted checkout sessions with the payment provider and looks them up
+ * again for reconciliation. Implementations are blocking; PaymentService calls
+ * them through GatewayBulkhead.
+ */
+public interface PaymentGateway {
+
+    CheckoutSession createCheckoutSession(PaymentRequest request) throws Exception;
+
+    CheckoutSessionStatus sessionStatus(String sessionId) throws Exception;
+}
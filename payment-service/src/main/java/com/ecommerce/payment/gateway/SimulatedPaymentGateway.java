@@ -0,0 +1,128 @@
+package com.ecommerce.payment.gateway;
+
+import com.ecommerce.payment.dto.PaymentRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in for Stripe Checkout, used for load tests and offline development.
+ * Session creation sleeps for a log-normally distributed latency (configured by its
+ * median and p99) and fails with the configured error rate. Visiting the returned
+ * checkout URL (see SimulatorController) "pays" the session and emits a signed
+ * checkout.session.completed or payment_intent.payment_failed webhook. Sessions
+ * that are not paid within the session TTL expire, as they do on Stripe.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.payment-gateway.provider", havingValue = "simulator")
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    private final SimulatedWebhookSender webhookSender;
+    private final TraceMetadata traceMetadata;
+    private final Map<String, OpenSession> openSessions = new ConcurrentHashMap<>();
+    private final Random random;
+    private final double latencyMu;
+    private final double latencySigma;
+
+    @Value("${application.payment-gateway.simulator.public-url:http://localhost:${server.port}}")
+    private String publicUrl;
+
+    @Value("${application.payment-gateway.simulator.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${application.payment-gateway.simulator.payment-failure-rate:0.0}")
+    private double paymentFailureRate;
+
+    @Value("${application.payment-gateway.simulator.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    public SimulatedPaymentGateway(
+            SimulatedWebhookSender webhookSender,
+            TraceMetadata traceMetadata,
+            @Value("${application.payment-gateway.simulator.seed:0}") long seed,
+            @Value("${application.payment-gateway.simulator.latency-median:150ms}") Duration latencyMedian,
+            @Value("${application.payment-gateway.simulator.latency-p99:800ms}") Duration latencyP99) {
+        this.webhookSender = webhookSender;
+        this.traceMetadata = traceMetadata;
+        this.random = seed == 0 ? new Random() : new Random(seed);
+        double median = Math.max(1, latencyMedian.toMillis());
+        double p99 = Math.max(median, latencyP99.toMillis());
+        this.latencyMu = Math.log(median);
+        this.latencySigma = Math.log(p99 / median) / Z_99;
+    }
+
+    @Override
+    public CheckoutSession createCheckoutSession(PaymentRequest request) throws InterruptedException {
+        Thread.sleep(nextLatencyMillis());
+
+        if (random.nextDouble() < errorRate) {
+            throw new SimulatedGatewayException("Simulated gateway error for order " + request.orderId());
+        }
+
+        String sessionId = "cs_sim_" + UUID.randomUUID().toString().replace("-", "");
+        openSessions.put(sessionId, new OpenSession(request.orderId(), traceMetadata.current(), Instant.now()));
+        return new CheckoutSession(sessionId, publicUrl + "/simulator/checkout/" + sessionId);
+    }
+
+    /**
+     * Completes an open session. The outcome is drawn from the configured payment
+     * failure rate unless forced by the caller. Emits an empty Mono for unknown or
+     * already completed sessions.
+     */
+    public Mono<Boolean> complete(String sessionId, Boolean forceSuccess) {
+        OpenSession session = openSessions.remove(sessionId);
+        if (session == null) {
+            return Mono.empty();
+        }
+        boolean success = forceSuccess != null ? forceSuccess : random.nextDouble() >= paymentFailureRate;
+        Mono<Void> webhook = success
+                ? webhookSender.sendCompleted(sessionId, session.orderId(), session.trace())
+                : webhookSender.sendPaymentFailed(session.orderId(), session.trace());
+        return webhook.thenReturn(success);
+    }
+
+    /**
+     * Sessions the simulator no longer holds were completed (their webhook recorded
+     * the outcome) or belong to an earlier run, so both count as expired.
+     */
+    @Override
+    public CheckoutSessionStatus sessionStatus(String sessionId) throws InterruptedException {
+        Thread.sleep(nextLatencyMillis());
+
+        OpenSession session = openSessions.get(sessionId);
+        if (session != null && session.createdAt().plus(sessionTtl).isBefore(Instant.now())) {
+            openSessions.remove(sessionId);
+            session = null;
+        }
+        CheckoutSessionStatus.State state = session != null
+                ? CheckoutSessionStatus.State.OPEN
+                : CheckoutSessionStatus.State.EXPIRED;
+        return new CheckoutSessionStatus(state, null);
+    }
+
+    private long nextLatencyMillis() {
+        return Math.round(Math.exp(latencyMu + latencySigma * random.nextGaussian()));
+    }
+
+    private record OpenSession(Long orderId, Map<String, String> trace, Instant createdAt) {
+    }
+
+    public static class SimulatedGatewayException extends RuntimeException {
+        public SimulatedGatewayException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.payment.gateway;
+
+import com.ecommerce.payment.service.WebhookProcessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.Stripe;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds Stripe-shaped events for simulated sessions and delivers them, signed
+ * with the configured webhook secret, to the payment-service webhook endpoint.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.payment-gateway.provider", havingValue = "simulator")
+public class SimulatedWebhookSender {
+
+    private final WebClient.Builder webClientBuilder;
+    private final ObjectMapper objectMapper;
+
+    @Value("${stripe.webhook.secret}")
+    private String webhookSecret;
+
+    @Value("${application.payment-gateway.simulator.webhook-url:http://localhost:${server.port}/api/payments/webhook}")
+    private String webhookUrl;
+
+    public Mono<Void> sendCompleted(String sessionId, Long orderId, Map<String, String> trace) {
+        Map<String, Object> session = new LinkedHashMap<>();
+        session.put("id", sessionId);
+        session.put("object", "checkout.session");
+        session.put("payment_intent", "pi_sim_" + UUID.randomUUID().toString().replace("-", ""));
+        session.put("payment_status", "paid");
+        session.put("status", "complete");
+        session.put("metadata", metadata(orderId, trace));
+        return send(WebhookProcessor.CHECKOUT_COMPLETED, session);
+    }
+
+    public Mono<Void> sendPaymentFailed(Long orderId, Map<String, String> trace) {
+        Map<String, Object> intent = new LinkedHashMap<>();
+        intent.put("id", "pi_sim_" + UUID.randomUUID().toString().replace("-", ""));
+        intent.put("object", "payment_intent");
+        intent.put("status", "requires_payment_method");
+        intent.put("metadata", metadata(orderId, trace));
+        return send(WebhookProcessor.PAYMENT_FAILED, intent);
+    }
+
+    private Map<String, String> metadata(Long orderId, Map<String, String> trace) {
+        Map<String, String> metadata = new LinkedHashMap<>(trace);
+        metadata.put("orderId", orderId.toString());
+        return metadata;
+    }
+
+    private Mono<Void> send(String type, Map<String, Object> dataObject) {
+        long now = Instant.now().getEpochSecond();
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", "evt_sim_" + UUID.randomUUID().toString().replace("-", ""));
+        event.put("object", "event");
+        event.put("api_version", Stripe.API_VERSION);
+        event.put("created", now);
+        event.put("livemode", false);
+        event.put("type", type);
+        event.put("data", Map.of("object", dataObject));
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+
+        return webClientBuilder.build().post()
+                .uri(webhookUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Stripe-Signature", StripeSignatures.header(payload, webhookSecret, now))
+                .bodyValue(payload)
+                .retrieve()
+                .bodyToMono(Void.class)
+                .doOnSuccess(v -> log.debug("Simulator delivered {} webhook for {}", type, dataObject.get("id")));
+    }
+}
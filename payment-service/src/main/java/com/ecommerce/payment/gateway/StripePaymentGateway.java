@@ -0,0 +1,67 @@
+package com.ecommerce.payment.gateway;
+
+import com.ecommerce.payment.dto.PaymentRequest;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "application.payment-gateway.provider", havingValue = "stripe", matchIfMissing = true)
+@RequiredArgsConstructor
+public class StripePaymentGateway implements PaymentGateway {
+
+    private final TraceMetadata traceMetadata;
+
+    @Value("${application.order-service.url}")
+    private String orderUrl;
+
+    @Override
+    public CheckoutSession createCheckoutSession(PaymentRequest request) throws StripeException {
+        Map<String, String> trace = traceMetadata.current();
+        SessionCreateParams params = SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setCustomerEmail(request.customerEmail())
+                .setSuccessUrl(orderUrl + "/api/orders/my-orders")
+                .setCancelUrl(orderUrl + "/api/orders/my-orders")
+                .addLineItem(SessionCreateParams.LineItem.builder()
+                        .setQuantity(1L)
+                        .setPriceData(SessionCreateParams.LineItem.PriceData.builder()
+                                .setCurrency("usd")
+                                .setUnitAmount(request.amount())
+                                .setProductData(SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                                        .setName("Order #" + request.orderId()).build())
+                                .build())
+                        .build())
+                .putMetadata("orderId", request.orderId().toString())
+                .putAllMetadata(trace)
+                .setPaymentIntentData(
+                        SessionCreateParams.PaymentIntentData.builder()
+                                .putMetadata("orderId", request.orderId().toString())
+                                .putAllMetadata(trace)
+                                .build()
+                )
+                .build();
+
+        Session session = Session.create(params);
+        return new CheckoutSession(session.getId(), session.getUrl());
+    }
+
+    // A complete session can still be unpaid while a delayed payment method settles
+    @Override
+    public CheckoutSessionStatus sessionStatus(String sessionId) throws StripeException {
+        Session session = Session.retrieve(sessionId);
+        if ("expired".equals(session.getStatus())) {
+            return new CheckoutSessionStatus(CheckoutSessionStatus.State.EXPIRED, null);
+        }
+        if ("complete".equals(session.getStatus()) && !"unpaid".equals(session.getPaymentStatus())) {
+            return new CheckoutSessionStatus(CheckoutSessionStatus.State.PAID, session.getPaymentIntent());
+        }
+        return new CheckoutSessionStatus(CheckoutSessionStatus.State.OPEN, null);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.payment.gateway;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+/**
+ * Produces Stripe-Signature header values (t=timestamp,v1=HMAC-SHA256) that
+ * Webhook.constructEvent accepts, for the simulator and for benchmarks.
+ */
+public final class StripeSignatures {
+
+    private StripeSignatures() {
+    }
+
+    public static String header(String payload, String secret, long epochSeconds) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] digest = mac.doFinal((epochSeconds + "." + payload).getBytes(StandardCharsets.UTF_8));
+            return "t=" + epochSeconds + ",v1=" + HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign webhook payload", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.payment.gateway;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * W3C trace headers (traceparent, tracestate) of the current span, to be stored as
+ * session and payment intent metadata. The provider echoes metadata back in its
+ * webhooks, which lets WebhookProcessor continue the trace of the order that started
+ * the checkout.
+ */
+@Component
+@RequiredArgsConstructor
+public class TraceMetadata {
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public Map<String, String> current() {
+        Span span = tracer.currentSpan();
+        if (span == null) {
+            return Map.of();
+        }
+        Map<String, String> carrier = new HashMap<>();
+        propagator.inject(span.context(), carrier, Map::put);
+        return carrier;
+    }
+}
@@ -1,9 +1,42 @@
 package com.ecommerce.payment.repository;
 
 import com.ecommerce.payment.entity.Payment;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByStripeSessionId(String stripeSessionId);
-}
\ No newline at end of file
+
+    List<Payment> findByOrderIdIn(Collection<Long> orderIds);
+
+    // Reconciliation only moves payments that are still PENDING, so a webhook
+    // that recorded the outcome in the meantime wins
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.status = com.ecommerce.payment.entity.PaymentStatus.EXPIRED, p.updatedAt = :now
+            WHERE p.id IN :ids AND p.status = com.ecommerce.payment.entity.PaymentStatus.PENDING
+            """)
+    int markExpired(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.status = com.ecommerce.payment.entity.PaymentStatus.SUCCEEDED,
+                p.paymentIntentId = :paymentIntentId, p.updatedAt = :now
+            WHERE p.id = :id AND p.status = com.ecommerce.payment.entity.PaymentStatus.PENDING
+            """)
+    int markSucceeded(@Param("id") Long id,
+                      @Param("paymentIntentId") String paymentIntentId,
+                      @Param("now") LocalDateTime now);
+}
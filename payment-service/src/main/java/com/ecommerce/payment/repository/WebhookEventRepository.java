@@ -0,0 +1,99 @@
+package com.ecommerce.payment.repository;
+
+import com.ecommerce.payment.entity.WebhookEvent;
+import com.ecommerce.payment.entity.WebhookEventStatus;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO webhook_inbox (event_id, event_type, order_id, payload, status, attempts,
+                                       event_created_at, received_at, next_attempt_at)
+            VALUES (:eventId, :eventType, :orderId, :payload, 'RECEIVED', 0, :eventCreatedAt, :now, :now)
+            ON CONFLICT (event_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId,
+                       @Param("eventType") String eventType,
+                       @Param("orderId") Long orderId,
+                       @Param("payload") String payload,
+                       @Param("eventCreatedAt") LocalDateTime eventCreatedAt,
+                       @Param("now") LocalDateTime now);
+
+    // Due events whose order has no earlier unfinished event, so events for one
+    // order are never worked on concurrently or out of order. SKIP LOCKED lets
+    // several pods drain the inbox at the same time.
+    @Query(value = """
+            SELECT * FROM webhook_inbox e
+            WHERE e.status IN ('RECEIVED', 'RETRY', 'PROCESSING')
+              AND e.next_attempt_at <= :now
+              AND NOT EXISTS (
+                    SELECT 1 FROM webhook_inbox p
+                    WHERE p.order_id = e.order_id
+                      AND p.status IN ('RECEIVED', 'RETRY', 'PROCESSING')
+                      AND (p.event_created_at, p.received_at) < (e.event_created_at, e.received_at))
+            ORDER BY e.event_created_at, e.received_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<WebhookEvent> findClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = :status, e.processedAt = :now WHERE e.eventId = :eventId")
+    int markCompleted(@Param("eventId") String eventId,
+                      @Param("status") WebhookEventStatus status,
+                      @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE WebhookEvent e
+            SET e.status = :status, e.lastError = :error, e.nextAttemptAt = :nextAttemptAt
+            WHERE e.eventId = :eventId
+            """)
+    int markFailed(@Param("eventId") String eventId,
+                   @Param("status") WebhookEventStatus status,
+                   @Param("error") String error,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    // Hands claimed events back without using up an attempt; only rows still
+    // PROCESSING are touched, so an event that finished in the meantime is left alone
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE WebhookEvent e
+            SET e.status = com.ecommerce.payment.entity.WebhookEventStatus.RETRY,
+                e.attempts = e.attempts - 1, e.nextAttemptAt = :now
+            WHERE e.eventId IN :eventIds
+              AND e.status = com.ecommerce.payment.entity.WebhookEventStatus.PROCESSING
+            """)
+    int release(@Param("eventIds") Collection<String> eventIds, @Param("now") LocalDateTime now);
+
+    // In batches, so that a large backlog after a long outage is not one long transaction
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM webhook_inbox
+            WHERE event_id IN (
+                    SELECT event_id FROM webhook_inbox
+                    WHERE status = 'PROCESSED' AND processed_at < :cutoff
+                    LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Query("SELECT COUNT(e) FROM WebhookEvent e WHERE e.status IN :statuses")
+    long countByStatusIn(@Param("statuses") List<WebhookEventStatus> statuses);
+
+    @Query("SELECT MIN(e.receivedAt) FROM WebhookEvent e WHERE e.status IN :statuses")
+    LocalDateTime findOldestReceivedAt(@Param("statuses") List<WebhookEventStatus> statuses);
+}
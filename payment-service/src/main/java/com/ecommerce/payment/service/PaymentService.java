@@ -1,66 +1,121 @@
 package com.ecommerce.payment.service;
 
+import com.ecommerce.payment.config.GracefulShutdown;
+import com.ecommerce.payment.dto.PaymentReconciliation;
 import com.ecommerce.payment.dto.PaymentRequest;
 import com.ecommerce.payment.entity.Payment;
 import com.ecommerce.payment.entity.PaymentStatus;
+import com.ecommerce.payment.gateway.GatewayBulkhead;
+import com.ecommerce.payment.gateway.PaymentGateway;
 import com.ecommerce.payment.repository.PaymentRepository;
-import com.stripe.model.checkout.Session;
-import com.stripe.param.checkout.SessionCreateParams;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import lombok.extern.slf4j.Slf4j;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
     private final PaymentRepository paymentRepository;
-    @Value("${application.order-service.url}")
-    private String orderUrl;
+    private final PaymentGateway paymentGateway;
+    private final GatewayBulkhead gatewayBulkhead;
+    private final GracefulShutdown gracefulShutdown;
+
+    @Value("${application.reconciliation.concurrency:4}")
+    private int reconciliationConcurrency;
 
     public Mono<String> createCheckoutSession(PaymentRequest request) {
-        log.info("DEBUG: Incoming PaymentRequest -> Email: [{}]",
-                request.customerEmail());
-        return Mono.fromCallable(() -> {
-            SessionCreateParams params = SessionCreateParams.builder()
-                    .setMode(SessionCreateParams.Mode.PAYMENT)
-                    .setCustomerEmail(request.customerEmail())
-                    .setSuccessUrl(orderUrl +"/api/orders/my-orders")
-                    .setCancelUrl(orderUrl +"/api/orders/my-orders")
-                    .addLineItem(SessionCreateParams.LineItem.builder()
-                            .setQuantity(1L)
-                            .setPriceData(SessionCreateParams.LineItem.PriceData.builder()
-                                    .setCurrency("usd")
-                                    .setUnitAmount(request.amount())
-                                    .setProductData(SessionCreateParams.LineItem.PriceData.ProductData.builder()
-                                            .setName("Order #" + request.orderId()).build())
-                                    .build())
-                            .build())
-                    .putMetadata("orderId", request.orderId().toString())
-                    .setPaymentIntentData(
-                            SessionCreateParams.PaymentIntentData.builder()
-                                    .putMetadata("orderId", request.orderId().toString())
-                                    .build()
-                    )
-                    .build();
+        log.debug("Creating checkout session for order {}", request.orderId());
+        return gracefulShutdown.track("createCheckoutSession", gatewayBulkhead.execute(() -> paymentGateway.createCheckoutSession(request))
+                .delayUntil(session -> GracefulShutdown.describe(
+                        "session " + session.id() + " for order " + request.orderId() + ", payment not yet saved"))
+                .publishOn(Schedulers.boundedElastic())
+                .map(session -> {
+                    Payment payment = Payment.builder()
+                            .orderId(request.orderId())
+                            .customerEmail(request.customerEmail())
+                            .stripeSessionId(session.id())
+                            .status(PaymentStatus.PENDING)
+                            .amount(request.amount())
+                            .build();
+                    paymentRepository.save(payment);
 
-            Session session = Session.create(params);
+                    return session.url();
+                }));
+    }
 
-            Payment payment = Payment.builder()
-                    .orderId(request.orderId())
-                    .customerEmail(request.customerEmail())
-                    .stripeSessionId(session.getId())
-                    .status(PaymentStatus.PENDING)
-                    .amount(request.amount())
-                    .build();
-            paymentRepository.save(payment);
+    /**
+     * Tells order-service whether each order was paid. Payments still PENDING are
+     * looked up with the provider; a paid session is recorded as SUCCEEDED (its
+     * webhook was lost) and expired sessions are marked EXPIRED in one update.
+     */
+    public Mono<List<PaymentReconciliation>> reconcile(List<Long> orderIds) {
+        Set<Long> expired = ConcurrentHashMap.newKeySet();
+        return Mono.fromCallable(() -> paymentRepository.findByOrderIdIn(orderIds))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(payments -> {
+                    Map<Long, Payment> byOrder = payments.stream()
+                            .collect(Collectors.toMap(Payment::getOrderId, p -> p, preferSucceededThenNewest()));
+                    return Flux.fromIterable(orderIds)
+                            .flatMap(orderId -> outcomeOf(byOrder.get(orderId), expired)
+                                    .map(outcome -> new PaymentReconciliation(orderId, outcome)),
+                                    reconciliationConcurrency);
+                })
+                .collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(results -> {
+                    if (!expired.isEmpty()) {
+                        paymentRepository.markExpired(expired, LocalDateTime.now());
+                    }
+                });
+    }
+
+    private Mono<PaymentReconciliation.Outcome> outcomeOf(Payment payment, Set<Long> expired) {
+        if (payment == null || payment.getStatus() == PaymentStatus.FAILED
+                || payment.getStatus() == PaymentStatus.EXPIRED || payment.getStripeSessionId() == null) {
+            return Mono.just(PaymentReconciliation.Outcome.UNPAID);
+        }
+        if (payment.getStatus() == PaymentStatus.SUCCEEDED) {
+            return Mono.just(PaymentReconciliation.Outcome.PAID);
+        }
+        return gatewayBulkhead.execute("session-status", () -> paymentGateway.sessionStatus(payment.getStripeSessionId()))
+                .publishOn(Schedulers.boundedElastic())
+                .map(status -> switch (status.state()) {
+                    case PAID -> {
+                        paymentRepository.markSucceeded(payment.getId(), status.paymentIntentId(), LocalDateTime.now());
+                        yield PaymentReconciliation.Outcome.PAID;
+                    }
+                    case EXPIRED -> {
+                        expired.add(payment.getId());
+                        yield PaymentReconciliation.Outcome.UNPAID;
+                    }
+                    case OPEN -> PaymentReconciliation.Outcome.OPEN;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Could not look up session {} for order {}: {}",
+                            payment.getStripeSessionId(), payment.getOrderId(), e.getMessage());
+                    return Mono.just(PaymentReconciliation.Outcome.UNKNOWN);
+                });
+    }
 
-            return session.getUrl();
-        }).subscribeOn(Schedulers.boundedElastic());
+    // An order can have several checkout sessions if the customer retried
+    private static BinaryOperator<Payment> preferSucceededThenNewest() {
+        Comparator<Payment> order = Comparator
+                .comparing((Payment p) -> p.getStatus() == PaymentStatus.SUCCEEDED)
+                .thenComparing(Payment::getId);
+        return (a, b) -> order.compare(a, b) >= 0 ? a : b;
     }
 }
@@ -0,0 +1,177 @@
+package com.ecommerce.payment.service;
+
+import com.ecommerce.payment.entity.WebhookEvent;
+import com.ecommerce.payment.entity.WebhookEventStatus;
+import com.ecommerce.payment.repository.WebhookEventRepository;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.net.Webhook;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@Service
+public class WebhookInboxService {
+
+    private static final List<WebhookEventStatus> PENDING = List.of(
+            WebhookEventStatus.RECEIVED, WebhookEventStatus.RETRY, WebhookEventStatus.PROCESSING);
+
+    private final WebhookEventRepository inboxRepository;
+    private final WebhookProcessor webhookProcessor;
+    private final Counter storedCounter;
+    private final Counter duplicateCounter;
+
+    @Value("${stripe.webhook.secret}")
+    private String endpointSecret;
+
+    @Value("${application.webhook-inbox.lease:60s}")
+    private Duration lease;
+
+    @Value("${application.webhook-inbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${application.webhook-inbox.retry-backoff:5s}")
+    private Duration retryBackoff;
+
+    @Value("${application.webhook-inbox.max-retry-backoff:10m}")
+    private Duration maxRetryBackoff;
+
+    @Value("${application.webhook-inbox.retention:30d}")
+    private Duration retention;
+
+    @Value("${application.webhook-inbox.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    public WebhookInboxService(WebhookEventRepository inboxRepository,
+                               WebhookProcessor webhookProcessor,
+                               MeterRegistry meterRegistry) {
+        this.inboxRepository = inboxRepository;
+        this.webhookProcessor = webhookProcessor;
+        this.storedCounter = Counter.builder("webhook.inbox.received")
+                .tag("result", "stored")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("webhook.inbox.received")
+                .tag("result", "duplicate")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifies the Stripe signature and stores the raw event. Returns false when
+     * the event id is already in the inbox (Stripe redelivery).
+     */
+    public boolean receive(String payload, String sigHeader) throws SignatureVerificationException {
+        Event event = Webhook.constructEvent(payload, sigHeader, endpointSecret);
+
+        String orderId = webhookProcessor.orderIdOf(webhookProcessor.dataObject(event));
+        Long parsedOrderId = null;
+        if (orderId != null && orderId.matches("\\d+")) {
+            parsedOrderId = Long.valueOf(orderId);
+        }
+
+        LocalDateTime eventCreatedAt = event.getCreated() != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochSecond(event.getCreated()), ZoneOffset.UTC)
+                : now();
+
+        int inserted = inboxRepository.insertIfAbsent(
+                event.getId(), event.getType(), parsedOrderId, payload, eventCreatedAt, now());
+
+        if (inserted == 0) {
+            duplicateCounter.increment();
+            log.info("Webhook event {} already in inbox, ignoring redelivery", event.getId());
+            return false;
+        }
+        storedCounter.increment();
+        log.info("Webhook event {} ({}) stored for Order ID: {}", event.getId(), event.getType(), orderId);
+        return true;
+    }
+
+    @Transactional
+    public List<WebhookEvent> claimBatch(int batchSize) {
+        LocalDateTime now = now();
+        List<WebhookEvent> batch = inboxRepository.findClaimable(now, batchSize);
+        for (WebhookEvent event : batch) {
+            event.setStatus(WebhookEventStatus.PROCESSING);
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptAt(now.plus(lease));
+        }
+        return inboxRepository.saveAll(batch);
+    }
+
+    public void markProcessed(WebhookEvent event) {
+        inboxRepository.markCompleted(event.getEventId(), WebhookEventStatus.PROCESSED, now());
+    }
+
+    /**
+     * Schedules the event for another attempt with exponential backoff, or parks it
+     * as DEAD once it is out of attempts or the failure is permanent.
+     * Returns the status the event was moved to.
+     */
+    public WebhookEventStatus markFailed(WebhookEvent event, Throwable error, boolean permanent) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (message.length() > 1000) {
+            message = message.substring(0, 1000);
+        }
+
+        if (permanent || event.getAttempts() >= maxAttempts) {
+            inboxRepository.markFailed(event.getEventId(), WebhookEventStatus.DEAD, message, now());
+            log.error("Webhook event {} moved to DEAD after {} attempts: {}", event.getEventId(), event.getAttempts(), message);
+            return WebhookEventStatus.DEAD;
+        }
+
+        long factor = 1L << Math.min(event.getAttempts() - 1, 20);
+        Duration backoff = retryBackoff.multipliedBy(factor);
+        if (backoff.compareTo(maxRetryBackoff) > 0) {
+            backoff = maxRetryBackoff;
+        }
+        inboxRepository.markFailed(event.getEventId(), WebhookEventStatus.RETRY, message, now().plus(backoff));
+        log.warn("Webhook event {} failed (attempt {}), retrying in {}: {}", event.getEventId(), event.getAttempts(), backoff, message);
+        return WebhookEventStatus.RETRY;
+    }
+
+    /** Returns claimed events to the inbox so that another instance picks them up right away. */
+    public int release(Collection<String> eventIds) {
+        return inboxRepository.release(eventIds, now());
+    }
+
+    /**
+     * Deletes events processed longer than {@code retention} ago. Redelivery of such an
+     * event would no longer be recognized as a duplicate, so the retention has to
+     * outlast Stripe's retries (three days). DEAD events are kept for inspection.
+     */
+    public long purgeProcessed() {
+        LocalDateTime cutoff = now().minus(retention);
+        long deleted = 0;
+        int batch;
+        do {
+            batch = inboxRepository.deleteProcessedBefore(cutoff, purgeBatchSize);
+            deleted += batch;
+        } while (batch == purgeBatchSize);
+        if (deleted > 0) {
+            log.info("Purged {} webhook events processed before {}", deleted, cutoff);
+        }
+        return deleted;
+    }
+
+    public long countPending() {
+        return inboxRepository.countByStatusIn(PENDING);
+    }
+
+    public LocalDateTime oldestPendingReceivedAt() {
+        return inboxRepository.findOldestReceivedAt(PENDING);
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.payment.service;
+
+import com.ecommerce.payment.config.GracefulShutdown;
+import com.ecommerce.payment.entity.WebhookEvent;
+import com.ecommerce.payment.entity.WebhookEventStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class WebhookInboxWorker {
+
+    private final WebhookInboxService inboxService;
+    private final WebhookProcessor webhookProcessor;
+    private final MeterRegistry meterRegistry;
+    private final GracefulShutdown gracefulShutdown;
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${application.webhook-inbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${application.webhook-inbox.workers:8}")
+    private int workers;
+
+    public WebhookInboxWorker(WebhookInboxService inboxService,
+                              WebhookProcessor webhookProcessor,
+                              MeterRegistry meterRegistry,
+                              GracefulShutdown gracefulShutdown) {
+        this.inboxService = inboxService;
+        this.webhookProcessor = webhookProcessor;
+        this.meterRegistry = meterRegistry;
+        this.gracefulShutdown = gracefulShutdown;
+        gracefulShutdown.afterDrain(this::releaseClaimed);
+        Gauge.builder("webhook.inbox.pending", pending, AtomicLong::get)
+                .description("Webhook events waiting to be processed")
+                .register(meterRegistry);
+        Gauge.builder("webhook.inbox.lag", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest unprocessed webhook event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.webhook-inbox.poll-interval:500ms}")
+    public void drain() {
+        List<WebhookEvent> batch;
+        do {
+            if (!gracefulShutdown.isAccepting()) {
+                return;
+            }
+            batch = inboxService.claimBatch(batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            batch.forEach(event -> claimed.add(event.getEventId()));
+            // Events in one batch always belong to different orders (see the claim
+            // query), so they can be worked on in parallel. Once shutdown begins the
+            // rest of the batch is left for releaseClaimed.
+            Flux.fromIterable(batch)
+                    .takeWhile(event -> gracefulShutdown.isAccepting())
+                    .flatMap(this::process, workers)
+                    .blockLast();
+        } while (batch.size() == batchSize);
+    }
+
+    // Runs after the shutdown drain. Without it, events this instance claimed but did
+    // not finish would wait out their lease before another instance retried them.
+    private void releaseClaimed() {
+        if (claimed.isEmpty()) {
+            return;
+        }
+        List<String> eventIds = List.copyOf(claimed);
+        int released = inboxService.release(eventIds);
+        log.info("Released {} of {} unfinished webhook events back to the inbox", released, eventIds.size());
+    }
+
+    @Scheduled(fixedRateString = "${application.webhook-inbox.metrics-interval:5s}")
+    public void refreshBacklogMetrics() {
+        pending.set(inboxService.countPending());
+        LocalDateTime oldest = inboxService.oldestPendingReceivedAt();
+        lagSeconds.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now(ZoneOffset.UTC)).toSeconds());
+    }
+
+    @Scheduled(fixedDelayString = "${application.webhook-inbox.purge-interval:1h}")
+    public void purge() {
+        inboxService.purgeProcessed();
+    }
+
+    private Mono<WebhookEventStatus> process(WebhookEvent event) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String description = "event " + event.getEventId() + " (" + event.getEventType() + ")";
+        return gracefulShutdown.track("webhook", GracefulShutdown.describe(description)
+                // deferred, so that a payload that fails to parse is marked failed like any other error
+                .then(Mono.defer(() -> webhookProcessor.process(event)))
+                .then(Mono.fromCallable(() -> {
+                    inboxService.markProcessed(event);
+                    return WebhookEventStatus.PROCESSED;
+                }))
+                .onErrorResume(e -> Mono.fromCallable(() -> inboxService.markFailed(event, e, isPermanent(e))))
+                .subscribeOn(Schedulers.boundedElastic()))
+                .doOnNext(outcome -> claimed.remove(event.getEventId()))
+                .doOnNext(outcome -> sample.stop(Timer.builder("webhook.inbox.processing")
+                        .description("Time to process one webhook event from the inbox")
+                        .tag("type", event.getEventType())
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .register(meterRegistry)));
+    }
+
+    // A 4xx from order-service (unknown order, bad secret) will not fix itself
+    private boolean isPermanent(Throwable e) {
+        return e instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is4xxClientError();
+    }
+}
@@ -0,0 +1,159 @@
+package com.ecommerce.payment.service;
+
+import com.ecommerce.payment.entity.PaymentStatus;
+import com.ecommerce.payment.entity.WebhookEvent;
+import com.ecommerce.payment.repository.PaymentRepository;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.ApiResource;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.micrometer.observation.transport.ReceiverContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WebhookProcessor {
+
+    public static final String CHECKOUT_COMPLETED = "checkout.session.completed";
+    public static final String PAYMENT_FAILED = "payment_intent.payment_failed";
+
+    private final PaymentRepository paymentRepository;
+    private final WebClient.Builder webClientBuilder;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${application.order-service.url}")
+    private String orderServiceUrl;
+
+    public Mono<Void> process(WebhookEvent inboxEvent) {
+        // The signature was verified when the event entered the inbox
+        Event event = StripeObject.deserializeStripeObject(
+                inboxEvent.getPayload(), Event.class, ApiResource.getGlobalResponseGetter());
+        String eventType = event.getType();
+        StripeObject dataObject = CHECKOUT_COMPLETED.equals(eventType) || PAYMENT_FAILED.equals(eventType)
+                ? dataObject(event)
+                : null;
+
+        // Continues the checkout's trace from the traceparent stored in the metadata
+        Observation observation = Observation.createNotStarted("webhook.process", () -> {
+                    ReceiverContext<Map<String, String>> context = new ReceiverContext<>(Map::get);
+                    context.setCarrier(metadataOf(dataObject));
+                    return context;
+                }, observationRegistry)
+                .contextualName("webhook " + eventType)
+                .lowCardinalityKeyValue("event.type", eventType)
+                .start();
+
+        long startedAt = System.nanoTime();
+        return handle(event, dataObject)
+                .doOnNext(outcome -> summary(inboxEvent, event, dataObject, outcome, startedAt, null))
+                .doOnError(e -> summary(inboxEvent, event, dataObject, "error", startedAt, e))
+                .doOnError(observation::error)
+                .doFinally(signal -> observation.stop())
+                .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation))
+                .then();
+    }
+
+    /**
+     * Handles the event and returns what was done with it: confirmed, cancelled,
+     * or why it was skipped.
+     */
+    private Mono<String> handle(Event event, StripeObject dataObject) {
+        String eventType = event.getType();
+        if (!CHECKOUT_COMPLETED.equals(eventType) && !PAYMENT_FAILED.equals(eventType)) {
+            return Mono.just("ignored");
+        }
+        if (dataObject == null) {
+            return Mono.just("undeserializable");
+        }
+        String orderId = orderIdOf(dataObject);
+        if (orderId == null || orderId.isEmpty()) {
+            return Mono.just("missing-order-id");
+        }
+
+        if (dataObject instanceof Session session) {
+            return processSuccess(session.getId(), orderId, session.getPaymentIntent())
+                    .thenReturn("confirmed");
+        }
+        return notifyOrderService(orderId, "cancel")
+                .thenReturn("cancelled");
+    }
+
+    // The one log event per webhook; the details are key/value pairs for the JSON encoder
+    private void summary(WebhookEvent inboxEvent, Event event, StripeObject dataObject,
+                         String outcome, long startedAt, Throwable error) {
+        var builder = error == null ? log.atInfo() : log.atWarn();
+        builder.addKeyValue("eventId", event.getId())
+                .addKeyValue("eventType", event.getType())
+                .addKeyValue("orderId", dataObject != null ? orderIdOf(dataObject) : null)
+                .addKeyValue("attempt", inboxEvent.getAttempts())
+                .addKeyValue("outcome", outcome)
+                .addKeyValue("durationMs", (System.nanoTime() - startedAt) / 1_000_000)
+                .log("Webhook {} {}: {}", event.getType(), event.getId(),
+                        error == null ? outcome : error.getClass().getSimpleName() + ": " + error.getMessage());
+    }
+
+    public StripeObject dataObject(Event event) {
+        EventDataObjectDeserializer deserializer = event.getDataObjectDeserializer();
+        return deserializer.getObject()
+                .orElseGet(() -> {
+                    // API version mismatch between the event and the SDK
+                    try {
+                        return deserializer.deserializeUnsafe();
+                    } catch (Exception e) {
+                        log.error("Could not deserialize Stripe object of event {}: {}", event.getId(), e.getMessage());
+                        return null;
+                    }
+                });
+    }
+
+    public String orderIdOf(StripeObject stripeObject) {
+        return metadataOf(stripeObject).get("orderId");
+    }
+
+    private Map<String, String> metadataOf(StripeObject stripeObject) {
+        Map<String, String> metadata = null;
+        if (stripeObject instanceof Session session) {
+            metadata = session.getMetadata();
+        } else if (stripeObject instanceof PaymentIntent intent) {
+            metadata = intent.getMetadata();
+        }
+        return metadata != null ? metadata : Map.of();
+    }
+
+    private Mono<Void> processSuccess(String sessionId, String orderId, String paymentIntentId) {
+        return Mono.fromRunnable(() -> paymentRepository.findByStripeSessionId(sessionId).ifPresent(payment -> {
+                    payment.setStatus(PaymentStatus.SUCCEEDED);
+                    payment.setPaymentIntentId(paymentIntentId);
+                    paymentRepository.save(payment);
+                }))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(notifyOrderService(orderId, "confirm"));
+    }
+
+    // Errors are propagated so the inbox worker can schedule a retry
+    private Mono<Void> notifyOrderService(String orderId, String action) {
+        if (orderServiceUrl == null || orderServiceUrl.isEmpty()) {
+            return Mono.error(new IllegalStateException("Order Service URL is not configured"));
+        }
+
+        return webClientBuilder.build().patch()
+                .uri(orderServiceUrl + "/api/orders/{id}/" + action, orderId)
+                .header("X-Internal-Secret", "my-app-secret-123")
+                .retrieve()
+                .bodyToMono(Void.class);
+    }
+}
@@ -0,0 +1,16 @@
+-- Baseline schema for payment-service. Written with IF NOT EXISTS so it also applies
+-- cleanly to databases that were previously managed by hibernate ddl-auto.
+-- The payments table is shared with order-service, which adds its own columns.
+
+CREATE TABLE IF NOT EXISTS payments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY
+);
+
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS order_id BIGINT;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS stripe_session_id VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS payment_intent_id VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS amount BIGINT;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS status VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS customer_email VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
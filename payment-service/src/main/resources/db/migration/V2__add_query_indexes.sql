@@ -0,0 +1,6 @@
+-- findByStripeSessionId, hit by every checkout.session.completed webhook.
+-- Declared explicitly instead of relying on the constraint hibernate used to create.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_payments_stripe_session_id ON payments (stripe_session_id);
+
+-- Lookups of the payment belonging to an order.
+CREATE INDEX IF NOT EXISTS idx_payments_order_id ON payments (order_id);
@@ -0,0 +1,21 @@
+-- Durable inbox for Stripe webhooks. The event id is the primary key, so a
+-- redelivered event is dropped by the insert itself (ON CONFLICT DO NOTHING).
+CREATE TABLE IF NOT EXISTS webhook_inbox (
+    event_id         VARCHAR(255) PRIMARY KEY,
+    event_type       VARCHAR(255) NOT NULL,
+    order_id         BIGINT,
+    payload          TEXT         NOT NULL,
+    status           VARCHAR(32)  NOT NULL,
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    last_error       VARCHAR(1000),
+    event_created_at TIMESTAMP(6) NOT NULL,
+    received_at      TIMESTAMP(6) NOT NULL,
+    next_attempt_at  TIMESTAMP(6) NOT NULL,
+    processed_at     TIMESTAMP(6)
+);
+
+-- Claim query: pending events that are due.
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_status_next_attempt ON webhook_inbox (status, next_attempt_at);
+
+-- Per-order ordering check: earlier unfinished events for the same order.
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_order_created ON webhook_inbox (order_id, event_created_at, received_at);
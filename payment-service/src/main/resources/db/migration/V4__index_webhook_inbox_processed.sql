@@ -0,0 +1,2 @@
+-- Retention purge: processed events by age, without scanning the pending ones.
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_processed_at ON webhook_inbox (processed_at) WHERE status = 'PROCESSED';
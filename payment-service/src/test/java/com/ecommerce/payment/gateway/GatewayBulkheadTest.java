@@ -0,0 +1,73 @@
+package com.ecommerce.payment.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GatewayBulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GatewayBulkhead bulkhead = new GatewayBulkhead(meterRegistry, ObservationRegistry.NOOP,
+            4, 4, 2, 1, Duration.ofSeconds(2), 0.9, Duration.ofSeconds(5), Duration.ofSeconds(2));
+    private final CountDownLatch provider = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        provider.countDown();
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void successAndErrorEachReleaseTheirSlot() {
+        assertThat(bulkhead.execute(() -> "ok").block()).isEqualTo("ok");
+        assertThatThrownBy(() -> bulkhead.execute(() -> {
+            throw new IllegalStateException("declined");
+        }).block()).hasMessageContaining("declined");
+
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void cancelAfterSuccessDoesNotReleaseTwice() {
+        // next() cancels upstream once the value is in, after doOnSuccess has run
+        assertThat(bulkhead.execute(() -> "ok").flux().next().block()).isEqualTo("ok");
+        assertThat(bulkhead.execute(() -> "ok").flux().next().block()).isEqualTo("ok");
+
+        assertThat(inFlight()).isZero();
+        bulkhead.execute(this::awaitProvider).subscribe();
+        bulkhead.execute(this::awaitProvider).subscribe();
+        assertThatThrownBy(() -> bulkhead.execute(() -> "ok").block())
+                .isInstanceOf(GatewaySaturatedException.class);
+    }
+
+    @Test
+    void cancelledCallGivesItsSlotBackOnce() {
+        Disposable call = bulkhead.execute(this::awaitProvider).subscribe();
+        assertThat(inFlight()).isEqualTo(1);
+
+        call.dispose();
+        provider.countDown();
+
+        assertThat(inFlight()).isZero();
+        assertThat(bulkhead.execute(() -> "ok").block()).isEqualTo("ok");
+        assertThat(inFlight()).isZero();
+    }
+
+    private String awaitProvider() throws InterruptedException {
+        provider.await(5, TimeUnit.SECONDS);
+        return "ok";
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("payment.gateway.inflight").gauge().value();
+    }
+}
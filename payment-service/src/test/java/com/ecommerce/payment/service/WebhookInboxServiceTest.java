@@ -0,0 +1,109 @@
+package com.ecommerce.payment.service;
+
+import com.ecommerce.payment.entity.WebhookEvent;
+import com.ecommerce.payment.entity.WebhookEventStatus;
+import com.ecommerce.payment.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookInboxServiceTest {
+
+    private final WebhookEventRepository repository = mock(WebhookEventRepository.class);
+    private WebhookInboxService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new WebhookInboxService(repository, mock(WebhookProcessor.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "maxAttempts", 10);
+        ReflectionTestUtils.setField(service, "retryBackoff", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(service, "maxRetryBackoff", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(service, "retention", Duration.ofDays(30));
+        ReflectionTestUtils.setField(service, "purgeBatchSize", 2);
+    }
+
+    @Test
+    void backoffDoublesWithEachAttempt() {
+        assertThat(retryDelayAfter(1)).isCloseTo(Duration.ofSeconds(5), Duration.ofSeconds(1));
+        assertThat(retryDelayAfter(2)).isCloseTo(Duration.ofSeconds(10), Duration.ofSeconds(1));
+        assertThat(retryDelayAfter(4)).isCloseTo(Duration.ofSeconds(40), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void backoffIsCappedAtMaxRetryBackoff() {
+        assertThat(retryDelayAfter(9)).isCloseTo(Duration.ofMinutes(10), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void eventIsDeadOnceOutOfAttempts() {
+        WebhookEventStatus status = service.markFailed(event(10), new RuntimeException("boom"), false);
+
+        assertThat(status).isEqualTo(WebhookEventStatus.DEAD);
+        verify(repository).markFailed(eq("evt_1"), eq(WebhookEventStatus.DEAD), eq("RuntimeException: boom"), any());
+    }
+
+    @Test
+    void permanentFailureIsDeadOnFirstAttempt() {
+        assertThat(service.markFailed(event(1), new IllegalStateException("404"), true))
+                .isEqualTo(WebhookEventStatus.DEAD);
+    }
+
+    @Test
+    void longErrorMessagesAreTruncatedToTheColumn() {
+        service.markFailed(event(1), new RuntimeException("x".repeat(2000)), false);
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(repository).markFailed(anyString(), any(), message.capture(), any());
+        assertThat(message.getValue()).hasSize(1000);
+    }
+
+    @Test
+    void purgeDeletesInBatchesUntilOneIsShort() {
+        when(repository.deleteProcessedBefore(any(), anyInt())).thenReturn(2, 2, 1);
+
+        assertThat(service.purgeProcessed()).isEqualTo(5);
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository, times(3)).deleteProcessedBefore(cutoff.capture(), eq(2));
+        assertThat(cutoff.getValue())
+                .isCloseTo(LocalDateTime.now(ZoneOffset.UTC).minusDays(30), within(5, ChronoUnit.SECONDS));
+    }
+
+    private Duration retryDelayAfter(int attempts) {
+        LocalDateTime before = LocalDateTime.now(ZoneOffset.UTC);
+        assertThat(service.markFailed(event(attempts), new RuntimeException("boom"), false))
+                .isEqualTo(WebhookEventStatus.RETRY);
+
+        ArgumentCaptor<LocalDateTime> nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).markFailed(eq("evt_1"), eq(WebhookEventStatus.RETRY), anyString(), nextAttemptAt.capture());
+        clearInvocations(repository);
+        return Duration.between(before, nextAttemptAt.getValue());
+    }
+
+    private static WebhookEvent event(int attempts) {
+        WebhookEvent event = new WebhookEvent();
+        event.setEventId("evt_1");
+        event.setEventType("checkout.session.completed");
+        event.setAttempts(attempts);
+        return event;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.payment.service;
+
+import com.ecommerce.payment.config.GracefulShutdown;
+import com.ecommerce.payment.entity.WebhookEvent;
+import com.ecommerce.payment.entity.WebhookEventStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookInboxWorkerTest {
+
+    private final WebhookInboxService inboxService = mock(WebhookInboxService.class);
+    private final WebhookProcessor webhookProcessor = mock(WebhookProcessor.class);
+    private WebhookInboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new WebhookInboxWorker(inboxService, webhookProcessor, new SimpleMeterRegistry(), new GracefulShutdown());
+        ReflectionTestUtils.setField(worker, "batchSize", 50);
+        ReflectionTestUtils.setField(worker, "workers", 8);
+    }
+
+    @Test
+    void payloadThatFailsToParseIsMarkedFailed() {
+        WebhookEvent bad = event("evt_bad");
+        WebhookEvent good = event("evt_good");
+        when(inboxService.claimBatch(anyInt())).thenReturn(List.of(bad, good));
+        IllegalStateException parseError = new IllegalStateException("not JSON");
+        when(webhookProcessor.process(bad)).thenThrow(parseError);
+        when(webhookProcessor.process(good)).thenReturn(Mono.empty());
+        when(inboxService.markFailed(any(), any(), eq(false))).thenReturn(WebhookEventStatus.RETRY);
+
+        worker.drain();
+
+        verify(inboxService).markFailed(bad, parseError, false);
+        verify(inboxService).markProcessed(good);
+        verify(inboxService, never()).markProcessed(bad);
+    }
+
+    private static WebhookEvent event(String id) {
+        WebhookEvent event = new WebhookEvent();
+        event.setEventId(id);
+        event.setEventType("checkout.session.completed");
+        return event;
+    }
+}
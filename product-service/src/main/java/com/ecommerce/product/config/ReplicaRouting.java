@@ -0,0 +1,104 @@
+package com.ecommerce.product.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which pool a connection comes from when a read replica is configured
+ * (see ReadReplicaConfig). Only read-only transactions go to the replica, and not:
+ * <ul>
+ *     <li>for a user who changed something within {@code sticky-window}, so that
+ *     they read their own writes;</li>
+ *     <li>while the replica is further behind than {@code max-lag}, or cannot be
+ *     reached.</li>
+ * </ul>
+ * Every connection handed out is counted as {@code db.routing} by pool and reason.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicaRouting {
+
+    public enum Pool {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private volatile boolean replicaUsable = true;
+
+    // Without a replica nothing reads lastWrites, so nothing is recorded
+    @Value("${application.datasource.replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${application.datasource.replica.sticky-window:5s}")
+    private Duration stickyWindow;
+
+    /** Sends the user's reads to the primary for the next sticky-window. */
+    public void recordWrite(String user) {
+        if (enabled && user != null) {
+            lastWrites.put(user, System.nanoTime());
+        }
+    }
+
+    /** Forgets users whose sticky-window has passed; run by the lag monitor. */
+    void forgetExpiredWrites() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(at -> now - at > stickyWindow.toNanos());
+    }
+
+    /** Pool for a connection about to be handed out, counted as db.routing. */
+    Pool route(boolean readOnly) {
+        Decision decision = decide(readOnly);
+        Counter.builder("db.routing")
+                .description("Connections handed out by the routing data source")
+                .tag("pool", decision.pool().name().toLowerCase())
+                .tag("reason", decision.reason())
+                .register(meterRegistry)
+                .increment();
+        return decision.pool();
+    }
+
+    private Decision decide(boolean readOnly) {
+        if (!readOnly) {
+            return new Decision(Pool.PRIMARY, "write");
+        }
+        if (isSticky(currentUser())) {
+            return new Decision(Pool.PRIMARY, "sticky");
+        }
+        if (!replicaUsable) {
+            return new Decision(Pool.PRIMARY, "lag");
+        }
+        return new Decision(Pool.REPLICA, "read");
+    }
+
+    boolean replicaUsable() {
+        return replicaUsable;
+    }
+
+    void replicaUsable(boolean usable) {
+        this.replicaUsable = usable;
+    }
+
+    private boolean isSticky(String user) {
+        Long at = user != null ? lastWrites.get(user) : null;
+        return at != null && System.nanoTime() - at < stickyWindow.toNanos();
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    private record Decision(Pool pool, String reason) {
+    }
+}
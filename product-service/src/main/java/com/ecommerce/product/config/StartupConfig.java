@@ -0,0 +1,27 @@
+package com.ecommerce.product.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Beans that stay eager when the startup profile turns on lazy initialization.
+ * Migrations still run at boot; schema validation is off in that profile, so an
+ * entity that no longer matches the schema fails on its first query. The replica
+ * lag monitor has to run before the first read is routed to the replica.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                FlywayMigrationInitializer.class,
+                LocalContainerEntityManagerFactoryBean.class,
+                ScheduledExecutorService.class);
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.dto.ProductRequest;
+import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.dto.SearchRequest;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.ProductSpecifications;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up before readiness (see application.warmup): the Hikari pool and the catalogue
+ * queries, the product DTOs, and JWT parsing with the role mapping.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String WARMUP_EMAIL = "warmup@example.invalid";
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${application.warmup.timeout:10s}")
+    private Duration timeout;
+
+    @Value("${application.security.jwt.secret-key}")
+    private String secretKey;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Timer.Sample total = Timer.start(meterRegistry);
+        step("database", this::database);
+        step("json", this::json);
+        step("jwt", this::jwt);
+        long elapsed = total.stop(meterRegistry.timer("warmup.duration", "step", "total"));
+        log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    // The first connection starts the Hikari pool, which then fills itself up to minimum-idle
+    private void database() {
+        productRepository.findById(-1L);
+        productRepository.findVersionById(-1L);
+        productRepository.findVersionByCategory("warmup");
+        productRepository.findSummariesByCategory("warmup");
+        productRepository.findSummaries(
+                ProductSpecifications.matching(new SearchRequest("warmup", "warmup", 0L, 1000L, true, null, null, null)),
+                PageRequest.of(0, 50, Sort.by("price", "id")));
+    }
+
+    private void json() throws Exception {
+        ProductRequest request = new ProductRequest("Warm-up product", "Synthetic product for warm-up", 1000L, 100, "warmup");
+        ProductResponse product = new ProductResponse(1L, "Warm-up product", "Synthetic product for warm-up",
+                1000L, 100, "warmup", true);
+        ProductSummary summary = new ProductSummary(1L, "Warm-up product", 1000L, 100, "warmup");
+        List<ProductSummary> catalogue = List.of(summary, summary, summary, summary, summary);
+        for (int i = 0; i < iterations; i++) {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(request), ProductRequest.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(product), ProductResponse.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(catalogue), ProductSummary[].class);
+        }
+    }
+
+    // Not through JwtService, so that jwt.verification only counts real requests
+    private void jwt() {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        String token = Jwts.builder()
+                .claim("roles", List.of("ROLE_USER"))
+                .setSubject(WARMUP_EMAIL)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + timeout.toMillis()))
+                .signWith(key)
+                .compact();
+        for (int i = 0; i < iterations; i++) {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            List<?> roles = claims.get("roles", List.class);
+            roles.stream().map(role -> new SimpleGrantedAuthority(role.toString())).toList();
+        }
+    }
+
+    private void step(String name, Step step) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            step.run();
+        } catch (Exception e) {
+            log.warn("Warm-up step {} failed: {}", name, e.toString());
+        }
+        sample.stop(meterRegistry.timer("warmup.duration", "step", name));
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+}
@@ -1,23 +1,38 @@
 package com.ecommerce.product.controller;
 
 
+import com.ecommerce.product.dto.CategoryFacet;
+import com.ecommerce.product.dto.ProductImportReport;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.dto.ResourceVersion;
 import com.ecommerce.product.dto.SearchRequest;
 import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.service.ProductImportService;
 import com.ecommerce.product.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final ProductImportService productImportService;
 
     @PostMapping
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
@@ -26,15 +41,56 @@ public class ProductController {
         productService.createProduct(request);
     }
 
+    /** Upserts products by SKU from a CSV or NDJSON body, read as it streams in. */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @ResponseStatus(HttpStatus.OK)
+    public ProductImportReport importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                              InputStream body) throws IOException {
+        return productImportService.importProducts(contentType, body);
+    }
+
+    // Conditional: If-None-Match / If-Modified-Since are checked against the version
+    // before the products are read, and a match is answered with 304 and no body
     @GetMapping
+    public ResponseEntity<List<ProductSummary>> getProducts(@RequestParam(required = false) String category,
+                                                            WebRequest request) {
+        ResourceVersion version = productService.getProductsVersion(category);
+        if (request.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+            return notModified();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .body(productService.getProducts(category));
+    }
+    @GetMapping("/facets")
     @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> getProducts(@RequestParam(required = false) String category) {
-        return productService.getProducts(category);
+    public List<CategoryFacet> getFacets() {
+        return productService.getFacets();
     }
-    @GetMapping("/{id}")
+
+    // Missing ids are left out rather than failing the lookup
+    @GetMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ProductSummary> getProductsByIds(@RequestParam Set<Long> ids) {
+        return productService.getProductsByIds(ids);
+    }
+
+    @PostMapping("/facets/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @ResponseStatus(HttpStatus.OK)
-    public ProductResponse getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+    public int rebuildFacets() {
+        return productService.rebuildFacets();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id, WebRequest request) {
+        Optional<ResourceVersion> version = productService.getProductVersion(id);
+        if (version.isPresent()
+                && request.checkNotModified(version.get().etag(), version.get().lastModifiedMillis())) {
+            return notModified();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .body(productService.getProductById(id));
     }
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
@@ -44,7 +100,7 @@ public class ProductController {
     }
     @PostMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> searchProducts(@RequestBody SearchRequest request) {
+    public List<ProductSummary> searchProducts(@RequestBody SearchRequest request) {
         return productService.searchProducts(request);
     }
 
@@ -60,4 +116,10 @@ public class ProductController {
     public void deleteProduct(@PathVariable Long id) {
         productService.deleteProduct(id);
     }
+
+    // checkNotModified has already set the ETag and Last-Modified headers
+    private static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT).build();
+    }
 }
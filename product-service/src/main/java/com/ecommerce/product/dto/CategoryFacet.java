@@ -0,0 +1,10 @@
+package com.ecommerce.product.dto;
+
+public record CategoryFacet(
+        String category,
+        long products,
+        long inStock,
+        long minPrice,
+        long maxPrice
+) {
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.product.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code upserted} rows were inserted or changed,
+ * {@code unchanged} ones already matched what is stored, and {@code duplicates} were
+ * replaced by a later row with the same SKU. Only the first rows that failed are
+ * listed in {@code errors}; {@code failed} counts all of them.
+ */
+public record ProductImportReport(
+        long rows,
+        long upserted,
+        long unchanged,
+        long duplicates,
+        long failed,
+        List<RowError> errors,
+        boolean errorsTruncated,
+        long durationMs
+) {
+    public record RowError(long line, String sku, String message) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.product.dto;
+
+/** One product of a bulk import, keyed by the supplier's SKU. */
+public record ProductImportRow(
+        String sku,
+        String name,
+        String description,
+        Long price,
+        Integer stockQuantity,
+        String category
+) {
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.product.dto;
+
+/**
+ * A product as list and search return it: every column but the description, which
+ * only GET /api/products/{id} sends. Built straight from a query's select list, so
+ * no Product entity is loaded for it.
+ */
+public record ProductSummary(
+        Long id,
+        String name,
+        Long price,
+        Integer stockQuantity,
+        String category,
+        boolean isAvailable
+) {
+
+    // Target of the constructor expressions in ProductRepository
+    public ProductSummary(Long id, String name, Long price, Integer stockQuantity, String category) {
+        this(id, name, price, stockQuantity, category, stockQuantity != null && stockQuantity > 0);
+    }
+}
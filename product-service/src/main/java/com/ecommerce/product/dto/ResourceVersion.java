@@ -0,0 +1,22 @@
+package com.ecommerce.product.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * What a conditional GET is checked against: a counter and the latest updated_at of
+ * the rows behind a response. For one product the counter is its version; for a list
+ * it is the number of products, so that a delete changes the ETag as well.
+ */
+public record ResourceVersion(Long counter, LocalDateTime lastModified) {
+
+    /** Weak, because the same version goes out as JSON or Smile, compressed or not. */
+    public String etag() {
+        return "W/\"" + counter + "-" + Math.max(lastModifiedMillis(), 0) + "\"";
+    }
+
+    /** Epoch millis, or -1 when there are no rows. */
+    public long lastModifiedMillis() {
+        return lastModified != null ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
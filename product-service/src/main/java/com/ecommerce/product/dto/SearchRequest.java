@@ -1,8 +1,29 @@
 package com.ecommerce.product.dto;
 
+/**
+ * Product search filters; every field is optional. Prices are in cents and both
+ * bounds are inclusive. {@code page} starts at 0 and {@code size} is capped by
+ * {@code application.search.max-page-size}.
+ */
 public record SearchRequest(
         String name,
-        String category
+        String category,
+        Long minPrice,
+        Long maxPrice,
+        Boolean inStock,
+        SortOrder sort,
+        Integer page,
+        Integer size
 ) {
 
+    public SearchRequest(String name, String category) {
+        this(name, category, null, null, null, null, null, null);
+    }
+
+    public enum SortOrder {
+        PRICE,
+        PRICE_DESC,
+        NAME,
+        NEWEST
+    }
 }
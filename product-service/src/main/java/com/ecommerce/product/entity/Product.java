@@ -3,6 +3,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "products")
@@ -27,4 +28,28 @@ public class Product {
     private Integer stockQuantity;
 
     private String category;
+
+    @Column(unique = true, length = 64)
+    private String sku;
+
+    // Not @Version: concurrent reduce-stock calls for one product must not fail each other.
+    // Only ETags read it.
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        version = 0L;
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Runs only when a column has changed
+    @PreUpdate
+    protected void onUpdate() {
+        version = version + 1;
+        updatedAt = LocalDateTime.now();
+    }
 }
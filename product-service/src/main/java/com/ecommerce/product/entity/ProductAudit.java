@@ -22,4 +22,5 @@ public class ProductAudit {
     private String action;
     private String adminEmail;
     private LocalDateTime timestamp;
+    private Integer rowCount;
 }
@@ -0,0 +1,34 @@
+package com.ecommerce.product.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Product count, in-stock count and price range of one category, written only through
+ * the native statements in ProductCategoryStatsRepository.
+ */
+@Entity
+@Immutable
+@Table(name = "product_category_stats")
+@Getter
+@NoArgsConstructor
+public class ProductCategoryStats {
+    @Id
+    private String categoryKey;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false)
+    private Long products;
+
+    @Column(nullable = false)
+    private Long inStock;
+
+    @Column(nullable = false)
+    private Long minPrice;
+
+    @Column(nullable = false)
+    private Long maxPrice;
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.entity.ProductCategoryStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Keeps product_category_stats in step with products. {@link #add} and {@link #remove}
+ * run in the transaction that changed the product, after it has been written, and
+ * count one product each. Only removing a category's cheapest or dearest product
+ * reads products again, through the upper(category) index.
+ */
+public interface ProductCategoryStatsRepository extends JpaRepository<ProductCategoryStats, String> {
+
+    List<ProductCategoryStats> findAllByOrderByCategoryKey();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_category_stats (category_key, category, products, in_stock, min_price, max_price)
+            VALUES (upper(:category), :category, 1, :inStock, :price, :price)
+            ON CONFLICT (category_key) DO UPDATE SET
+                products = product_category_stats.products + 1,
+                in_stock = product_category_stats.in_stock + EXCLUDED.in_stock,
+                min_price = LEAST(product_category_stats.min_price, EXCLUDED.min_price),
+                max_price = GREATEST(product_category_stats.max_price, EXCLUDED.max_price)
+            """, nativeQuery = true)
+    void add(@Param("category") String category, @Param("price") long price, @Param("inStock") int inStock);
+
+    @Modifying
+    @Query(value = """
+            UPDATE product_category_stats s SET
+                products = s.products - 1,
+                in_stock = s.in_stock - :inStock,
+                min_price = CASE WHEN :price > s.min_price THEN s.min_price
+                                 ELSE COALESCE((SELECT min(p.price) FROM products p WHERE upper(p.category) = s.category_key), 0) END,
+                max_price = CASE WHEN :price < s.max_price THEN s.max_price
+                                 ELSE COALESCE((SELECT max(p.price) FROM products p WHERE upper(p.category) = s.category_key), 0) END
+            WHERE s.category_key = upper(:category)
+            """, nativeQuery = true)
+    void remove(@Param("category") String category, @Param("price") long price, @Param("inStock") int inStock);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_category_stats WHERE category_key = upper(:category) AND products <= 0",
+            nativeQuery = true)
+    void deleteIfEmpty(@Param("category") String category);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_category_stats", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "LOCK TABLE products IN SHARE MODE", nativeQuery = true)
+    void lockProducts();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_category_stats (category_key, category, products, in_stock, min_price, max_price)
+            SELECT upper(category), min(category), count(*), count(*) FILTER (WHERE stock_quantity > 0), min(price), max(price)
+            FROM products
+            WHERE btrim(category) <> ''
+            GROUP BY upper(category)
+            """, nativeQuery = true)
+    int insertFromProducts();
+
+    /**
+     * Recomputes every row from products. The SHARE lock waits for product writes in
+     * flight to commit and holds new ones off until the rebuild commits; without it a
+     * product moved while the rows were read could be counted in both categories.
+     * Writes, stock reductions included, stall for the length of one aggregate scan.
+     */
+    @Transactional
+    default int rebuild() {
+        lockProducts();
+        deleteAllRows();
+        return insertFromProducts();
+    }
+}
@@ -1,14 +1,57 @@
 package com.ecommerce.product.repository;
 
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.dto.ResourceVersion;
 import com.ecommerce.product.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByCategoryIgnoreCase(String category);
+/**
+ * Search goes through {@link ProductSpecifications} rather than one method per filter combination.
+ * Lists select {@link ProductSummary} columns; whole entities are loaded only to show or change one product.
+ */
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductSummaryRepository {
 
-    List<Product> findByNameContainingIgnoreCase(String name);
+    @Query("""
+            SELECT new com.ecommerce.product.dto.ProductSummary(p.id, p.name, p.price, p.stockQuantity, p.category)
+            FROM Product p
+            ORDER BY p.id
+            """)
+    List<ProductSummary> findAllSummaries();
 
-    List<Product> findByNameContainingIgnoreCaseAndCategoryIgnoreCase(String name, String category);
+    @Query("""
+            SELECT new com.ecommerce.product.dto.ProductSummary(p.id, p.name, p.price, p.stockQuantity, p.category)
+            FROM Product p
+            WHERE upper(p.category) = upper(:category)
+            ORDER BY p.id
+            """)
+    List<ProductSummary> findSummariesByCategory(@Param("category") String category);
+
+    @Query("""
+            SELECT new com.ecommerce.product.dto.ProductSummary(p.id, p.name, p.price, p.stockQuantity, p.category)
+            FROM Product p
+            WHERE p.id IN :ids
+            ORDER BY p.id
+            """)
+    List<ProductSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.ecommerce.product.dto.ResourceVersion(p.version, p.updatedAt) FROM Product p WHERE p.id = :id")
+    Optional<ResourceVersion> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT new com.ecommerce.product.dto.ResourceVersion(count(p), max(p.updatedAt)) FROM Product p")
+    ResourceVersion findAllVersion();
+
+    @Query("""
+            SELECT new com.ecommerce.product.dto.ResourceVersion(count(p), max(p.updatedAt))
+            FROM Product p
+            WHERE upper(p.category) = upper(:category)
+            """)
+    ResourceVersion findVersionByCategory(@Param("category") String category);
 }
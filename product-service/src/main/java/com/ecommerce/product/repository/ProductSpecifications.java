@@ -0,0 +1,66 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.dto.SearchRequest;
+import com.ecommerce.product.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+
+import java.util.Locale;
+
+/**
+ * Search filters for {@link ProductRepository}, combined as the request needs them.
+ * Each one is written against an index from V2 or V5: name and category compare
+ * upper(column) like the IgnoreCase lookups do, and price and in-stock are plain
+ * range predicates that the composite indexes can serve.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(SearchRequest request) {
+        Specification<Product> spec = Specification.allOf();
+        if (hasText(request.name())) {
+            spec = spec.and(nameContains(request.name().trim()));
+        }
+        if (hasText(request.category())) {
+            spec = spec.and(inCategory(request.category().trim()));
+        }
+        if (request.minPrice() != null) {
+            spec = spec.and(priceAtLeast(request.minPrice()));
+        }
+        if (request.maxPrice() != null) {
+            spec = spec.and(priceAtMost(request.maxPrice()));
+        }
+        if (Boolean.TRUE.equals(request.inStock())) {
+            spec = spec.and(inStock());
+        }
+        return spec;
+    }
+
+    // upper(name) LIKE '%TERM%', served by the trigram index
+    public static Specification<Product> nameContains(String term) {
+        String pattern = "%" + EscapeCharacter.DEFAULT.escape(term.toUpperCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.upper(root.get("name")), pattern, EscapeCharacter.DEFAULT.getEscapeCharacter());
+    }
+
+    public static Specification<Product> inCategory(String category) {
+        return (root, query, cb) -> cb.equal(cb.upper(root.get("category")), category.toUpperCase(Locale.ROOT));
+    }
+
+    public static Specification<Product> priceAtLeast(long price) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), price);
+    }
+
+    public static Specification<Product> priceAtMost(long price) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), price);
+    }
+
+    public static Specification<Product> inStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("stockQuantity"), 0);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
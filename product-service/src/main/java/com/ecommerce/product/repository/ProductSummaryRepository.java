@@ -0,0 +1,18 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.entity.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Specification queries that select {@link ProductSummary} columns. The fluent
+ * {@code findBy} projections still load whole entities, so this is done by hand.
+ */
+public interface ProductSummaryRepository {
+
+    /** One page of the matching products, without counting the rest. */
+    List<ProductSummary> findSummaries(Specification<Product> spec, Pageable pageable);
+}
@@ -0,0 +1,223 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductImportRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads a bulk import body one row at a time, so memory stays flat however large the
+ * feed is. A row that cannot be parsed comes back with an error and reading carries
+ * on with the next one.
+ */
+abstract class ProductImportReader {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    record Parsed(long line, ProductImportRow row, String error) {
+
+        String sku() {
+            return row != null ? row.sku() : null;
+        }
+    }
+
+    protected final BufferedReader reader;
+    protected long line;
+
+    private ProductImportReader(InputStream body, Charset charset) {
+        this.reader = new BufferedReader(new InputStreamReader(body, charset), 64 * 1024);
+    }
+
+    static ProductImportReader of(MediaType contentType, InputStream body, ObjectMapper objectMapper)
+            throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        if (contentType.isCompatibleWith(TEXT_CSV)) {
+            return new Csv(body, charset);
+        }
+        if (contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return new Ndjson(body, charset, objectMapper);
+        }
+        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Expected text/csv or application/x-ndjson");
+    }
+
+    /** The next row, or null once the body is exhausted. Blank lines are skipped. */
+    abstract Parsed next() throws IOException;
+
+    private static final class Ndjson extends ProductImportReader {
+
+        private final ObjectMapper objectMapper;
+
+        Ndjson(InputStream body, Charset charset, ObjectMapper objectMapper) {
+            super(body, charset);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Parsed next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+
+            try {
+                return new Parsed(line, objectMapper.readValue(text, ProductImportRow.class), null);
+            } catch (JsonProcessingException e) {
+                return new Parsed(line, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row naming the columns: sku, name, description, price,
+     * stockQuantity (or stock_quantity) and category, in any order.
+     */
+    private static final class Csv extends ProductImportReader {
+
+        private final int width;
+        private final int sku;
+        private final int name;
+        private final int description;
+        private final int price;
+        private final int stockQuantity;
+        private final int category;
+        private boolean unterminated;
+
+        Csv(InputStream body, Charset charset) throws IOException {
+            super(body, charset);
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV body has no header row");
+            }
+            List<String> columns = header.stream()
+                    .map(column -> column == null ? "" : column.replace("\uFEFF", "").replace("_", "")
+                            .trim().toLowerCase(Locale.ROOT))
+                    .toList();
+            this.width = columns.size();
+            this.sku = required(columns, "sku");
+            this.name = required(columns, "name");
+            this.description = columns.indexOf("description");
+            this.price = required(columns, "price");
+            this.stockQuantity = required(columns, "stockquantity");
+            this.category = columns.indexOf("category");
+        }
+
+        @Override
+        Parsed next() throws IOException {
+            List<String> fields;
+            long start;
+            do {
+                start = line + 1;
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0) == null);
+
+            if (unterminated) {
+                return new Parsed(start, null, "Quoted field is not closed");
+            }
+            if (fields.size() != width) {
+                return new Parsed(start, null, "Expected " + width + " fields, found " + fields.size());
+            }
+            try {
+                return new Parsed(start, new ProductImportRow(
+                        fields.get(sku),
+                        fields.get(name),
+                        description >= 0 ? fields.get(description) : null,
+                        parseLong(fields.get(price), "price"),
+                        Math.toIntExact(parseLong(fields.get(stockQuantity), "stockQuantity")),
+                        category >= 0 ? fields.get(category) : null), null);
+            } catch (IllegalArgumentException e) {
+                return new Parsed(start, null, e.getMessage());
+            } catch (ArithmeticException e) {
+                return new Parsed(start, null, "stockQuantity is out of range");
+            }
+        }
+
+        // One record, which may span several lines inside quotes; empty fields are null
+        private List<String> readRecord() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (quoted) {
+                        String more = reader.readLine();
+                        if (more != null) {
+                            line++;
+                            field.append('\n');
+                            text = more;
+                            i = 0;
+                            continue;
+                        }
+                    }
+                    unterminated = quoted;
+                    fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+                    return fields;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            }
+        }
+
+        private static int required(List<String> columns, String column) {
+            int index = columns.indexOf(column);
+            if (index < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header has no '" + column + "' column");
+            }
+            return index;
+        }
+
+        private static long parseLong(String value, String column) {
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException(column + " is required");
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " is not a whole number: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ReplicaRouting;
+import com.ecommerce.product.dto.ProductImportReport;
+import com.ecommerce.product.dto.ProductImportRow;
+import com.ecommerce.product.entity.ProductAudit;
+import com.ecommerce.product.repository.ProductAuditRepository;
+import com.ecommerce.product.repository.ProductCategoryStatsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk product import for supplier feeds. The body is parsed as it arrives and rows
+ * are upserted by SKU in JDBC batches of {@code batch-size}. Each batch commits on its
+ * own with one audit record, so a failed or aborted import keeps the batches before
+ * it, and sending the feed again is safe. Rows that match what is stored are left
+ * alone, which spares the indexes most of a nightly feed.
+ * <p>
+ * A row that is malformed or rejected by the database is reported and skipped. When
+ * a batch fails, its rows are retried one at a time to find the ones at fault.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    // updated_at is bound from this JVM's clock, the one Product's callbacks use, so that
+    // the list's Last-Modified does not depend on which path wrote last
+    private static final String UPSERT = """
+            INSERT INTO products (sku, name, description, price, stock_quantity, category, version, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, 0, ?)
+            ON CONFLICT (sku) DO UPDATE SET
+                name = EXCLUDED.name,
+                description = EXCLUDED.description,
+                price = EXCLUDED.price,
+                stock_quantity = EXCLUDED.stock_quantity,
+                category = EXCLUDED.category,
+                version = products.version + 1,
+                updated_at = EXCLUDED.updated_at
+            WHERE (products.name, products.description, products.price, products.stock_quantity, products.category)
+                IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.description, EXCLUDED.price, EXCLUDED.stock_quantity, EXCLUDED.category)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductAuditRepository auditRepository;
+    private final ProductCategoryStatsRepository categoryStatsRepository;
+    private final ObjectMapper objectMapper;
+    private final ReplicaRouting replicaRouting;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.product-import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${application.product-import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ProductImportReport importProducts(MediaType contentType, InputStream body) throws IOException {
+        long start = System.nanoTime();
+        Run run = new Run(SecurityContextHolder.getContext().getAuthentication().getName());
+        ProductImportReader reader = ProductImportReader.of(contentType, body, objectMapper);
+
+        // Keyed by SKU: one statement cannot upsert the same row twice, and the
+        // later row would have won anyway
+        Map<String, ProductImportReader.Parsed> batch = new LinkedHashMap<>();
+        try {
+            for (ProductImportReader.Parsed parsed = reader.next(); parsed != null; parsed = reader.next()) {
+                run.rows++;
+                String error = parsed.error() != null ? parsed.error() : validate(parsed.row());
+                if (error != null) {
+                    run.fail(parsed.line(), parsed.sku(), error);
+                    continue;
+                }
+                if (batch.put(parsed.sku().trim(), parsed) != null) {
+                    run.duplicates++;
+                    count("duplicate", 1);
+                }
+                if (batch.size() >= batchSize) {
+                    write(run, new ArrayList<>(batch.values()));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(run, new ArrayList<>(batch.values()));
+            }
+        } finally {
+            // One pass over products costs less than keeping the facets in step row by row
+            if (run.upserted > 0) {
+                categoryStatsRepository.rebuild();
+            }
+            replicaRouting.recordWrite(run.adminEmail);
+            long elapsed = System.nanoTime() - start;
+            log.info("Product import by {}: {} rows, {} upserted, {} unchanged, {} duplicates, {} failed in {} ms",
+                    run.adminEmail, run.rows, run.upserted, run.unchanged, run.duplicates, run.failed,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        return new ProductImportReport(run.rows, run.upserted, run.unchanged, run.duplicates, run.failed, run.errors,
+                run.failed > run.errors.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void write(Run run, List<ProductImportReader.Parsed> rows) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // A row the WHERE clause leaves alone counts 0. The counts are per row only
+            // because the driver does not rewrite the batch into multi-row INSERTs
+            int written = transactionTemplate.execute(tx -> {
+                int changed = 0;
+                for (int[] counts : jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(), (ps, parsed) -> bind(ps, parsed.row()))) {
+                    changed += Arrays.stream(counts).sum();
+                }
+                audit(run.adminEmail, changed);
+                return changed;
+            });
+            run.written(written, rows.size() - written);
+        } catch (DataAccessException e) {
+            log.debug("Import batch failed, retrying its {} rows one at a time: {}", rows.size(), e.getMessage());
+            writeOneByOne(run, rows);
+        }
+        sample.stop(Timer.builder("product.import.batch")
+                .description("Time to write one batch of imported products")
+                .register(meterRegistry));
+    }
+
+    private void writeOneByOne(Run run, List<ProductImportReader.Parsed> rows) {
+        int written = 0;
+        for (ProductImportReader.Parsed parsed : rows) {
+            try {
+                int changed = transactionTemplate.execute(tx -> jdbcTemplate.update(UPSERT, ps -> bind(ps, parsed.row())));
+                run.written(changed, 1 - changed);
+                written += changed;
+            } catch (DataAccessException e) {
+                run.fail(parsed.line(), parsed.sku(), e.getMostSpecificCause().getMessage());
+            }
+        }
+        if (written > 0) {
+            int auditedRows = written;
+            transactionTemplate.executeWithoutResult(tx -> audit(run.adminEmail, auditedRows));
+        }
+    }
+
+    private void audit(String adminEmail, int rowCount) {
+        auditRepository.save(ProductAudit.builder()
+                .action("IMPORT")
+                .adminEmail(adminEmail)
+                .rowCount(rowCount)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    private static void bind(PreparedStatement ps, ProductImportRow row) throws SQLException {
+        ps.setString(1, row.sku().trim());
+        ps.setString(2, row.name().trim());
+        ps.setString(3, row.description());
+        ps.setLong(4, row.price());
+        ps.setInt(5, row.stockQuantity());
+        if (row.category() != null && !row.category().isBlank()) {
+            ps.setString(6, row.category().trim());
+        } else {
+            ps.setNull(6, Types.VARCHAR);
+        }
+        ps.setObject(7, LocalDateTime.now());
+    }
+
+    // Checked here rather than left to the database, so one bad row does not cost a batch retry
+    private static String validate(ProductImportRow row) {
+        if (row.sku() == null || row.sku().isBlank()) {
+            return "sku is required";
+        }
+        if (row.sku().trim().length() > 64) {
+            return "sku is longer than 64 characters";
+        }
+        if (row.name() == null || row.name().isBlank()) {
+            return "name is required";
+        }
+        if (row.name().trim().length() > 255
+                || (row.description() != null && row.description().length() > 255)
+                || (row.category() != null && row.category().trim().length() > 255)) {
+            return "name, description and category are limited to 255 characters";
+        }
+        if (row.price() == null || row.price() < 0) {
+            return "price must be zero or more";
+        }
+        if (row.stockQuantity() == null || row.stockQuantity() < 0) {
+            return "stockQuantity must be zero or more";
+        }
+        return null;
+    }
+
+    private void count(String outcome, long rows) {
+        Counter.builder("product.import.rows")
+                .description("Rows received by the bulk product import")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+
+    private final class Run {
+        private final String adminEmail;
+        private final List<ProductImportReport.RowError> errors = new ArrayList<>();
+        private long rows;
+        private long upserted;
+        private long unchanged;
+        private long duplicates;
+        private long failed;
+
+        Run(String adminEmail) {
+            this.adminEmail = adminEmail;
+        }
+
+        void written(int changed, int same) {
+            upserted += changed;
+            unchanged += same;
+            count("upserted", changed);
+            count("unchanged", same);
+        }
+
+        void fail(long line, String sku, String message) {
+            failed++;
+            count("failed", 1);
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportReport.RowError(line, sku, message));
+            }
+        }
+    }
+}
@@ -1,26 +1,48 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.config.ReplicaRouting;
+import com.ecommerce.product.dto.CategoryFacet;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.dto.ResourceVersion;
 import com.ecommerce.product.dto.SearchRequest;
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.entity.ProductAudit;
 import com.ecommerce.product.repository.ProductAuditRepository;
+import com.ecommerce.product.repository.ProductCategoryStatsRepository;
 import com.ecommerce.product.repository.ProductRepository;
-import jakarta.transaction.Transactional;
+import com.ecommerce.product.repository.ProductSpecifications;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     private final ProductRepository productRepository;
     private final ProductAuditRepository auditRepository;
+    private final ReplicaRouting replicaRouting;
+    private final ProductCategoryStatsRepository categoryStatsRepository;
 
+    @Value("${application.search.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${application.search.max-page-size:200}")
+    private int maxPageSize;
+
+    @Transactional
     public void createProduct(ProductRequest request) {
         Product product = Product.builder()
                 .name(request.name())
@@ -30,12 +52,15 @@ public class ProductService {
                 .category(request.category())
                 .build();
         Product savedproduct = productRepository.save(product);
+        countIn(Listing.of(savedproduct));
         saveAudit(savedproduct.getId(), "CREATE");
     }
 
+    @Transactional
     public void updateProduct(Long id, ProductRequest request) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
+        Listing before = Listing.of(product);
 
         product.setName(request.name());
         product.setDescription(request.description());
@@ -44,16 +69,18 @@ public class ProductService {
         product.setCategory(request.category());
 
         productRepository.save(product);
+        recount(before, product);
 
         saveAudit(id, "UPDATE");
     }
 
+    @Transactional
     public void deleteProduct(Long id) {
-        if(!productRepository.existsById(id)) {
-            throw new RuntimeException("Product doesn't exist");
-        }
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product doesn't exist"));
 
-        productRepository.deleteById(id);
+        productRepository.delete(product);
+        countOut(Listing.of(product));
 
         saveAudit(id, "DELETE");
     }
@@ -69,49 +96,73 @@ public class ProductService {
                 .build();
 
         auditRepository.save(audit);
+        replicaRouting.recordWrite(adminEmail);
     }
 
-    public List<ProductResponse> getProducts(String category) {
-        List<Product> products;
-
+    // Read-only transactions skip the flush, and summaries are never managed entities
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getProducts(String category) {
+        if (category != null && !category.isEmpty()) {
+            return productRepository.findSummariesByCategory(category);
+        }
+        return productRepository.findAllSummaries();
+    }
+    /** Validators of getProducts(category), read without loading the products. */
+    @Transactional(readOnly = true)
+    public ResourceVersion getProductsVersion(String category) {
         if (category != null && !category.isEmpty()) {
-            products = productRepository.findByCategoryIgnoreCase(category);
-        } else {
-            products = productRepository.findAll();
+            return productRepository.findVersionByCategory(category);
         }
+        return productRepository.findAllVersion();
+    }
 
-        return products.stream()
-                .map(this::mapToProductResponse)
-                .toList();
+    /** The products that exist among {@code ids}, for callers that show many at once. */
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getProductsByIds(Set<Long> ids) {
+        if (ids.size() > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxPageSize + " ids per request");
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return productRepository.findSummariesByIds(ids);
     }
+
+    @Transactional(readOnly = true)
+    public Optional<ResourceVersion> getProductVersion(Long id) {
+        return productRepository.findVersionById(id);
+    }
+
+    @Transactional(readOnly = true)
     public ProductResponse getProductById(Long id) {
         return productRepository.findById(id)
                 .map(this::mapToProductResponse)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
-    public List<ProductResponse> searchProducts(SearchRequest request) {
-        List<Product> products;
-
-        String name = request.name();
-        String category = request.category();
+    @Transactional(readOnly = true)
+    public List<ProductSummary> searchProducts(SearchRequest request) {
+        if (request.minPrice() != null && request.maxPrice() != null && request.minPrice() > request.maxPrice()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minPrice is greater than maxPrice");
+        }
+        int page = request.page() != null ? Math.max(request.page(), 0) : 0;
+        int size = request.size() != null ? Math.min(Math.max(request.size(), 1), maxPageSize) : defaultPageSize;
 
-        boolean hasName = name != null && !name.trim().isEmpty();
-        boolean hasCategory = category != null && !category.trim().isEmpty();
+        // Reads just the page, without counting every match
+        return productRepository.findSummaries(ProductSpecifications.matching(request),
+                PageRequest.of(page, size, sortFor(request.sort())));
+    }
 
-        if (hasName && hasCategory) {
-            products = productRepository.findByNameContainingIgnoreCaseAndCategoryIgnoreCase(
-                    name.trim(), category.trim());
-        } else if (hasName) {
-            products = productRepository.findByNameContainingIgnoreCase(name.trim());
-        } else if (hasCategory) {
-            products = productRepository.findByCategoryIgnoreCase(category.trim());
-        } else {
-            products = productRepository.findAll();
+    // Ties are broken by id so that pages do not overlap
+    private static Sort sortFor(SearchRequest.SortOrder order) {
+        if (order == null) {
+            return Sort.by("id");
         }
-
-        return products.stream()
-                .map(this::mapToProductResponse)
-                .toList();
+        return switch (order) {
+            case PRICE -> Sort.by("price", "id");
+            case PRICE_DESC -> Sort.by(Sort.Direction.DESC, "price", "id");
+            case NAME -> Sort.by("name", "id");
+            case NEWEST -> Sort.by(Sort.Direction.DESC, "id");
+        };
     }
 
     @Transactional
@@ -123,8 +174,57 @@ public class ProductService {
             throw new RuntimeException("Insufficient stock for product: " + id);
         }
 
+        Listing before = Listing.of(product);
         product.setStockQuantity(product.getStockQuantity() - quantity);
         productRepository.save(product);
+        recount(before, product);
+    }
+
+    /** Product counts and price range per category, from product_category_stats. */
+    @Transactional(readOnly = true)
+    public List<CategoryFacet> getFacets() {
+        return categoryStatsRepository.findAllByOrderByCategoryKey().stream()
+                .map(stats -> new CategoryFacet(stats.getCategory(), stats.getProducts(), stats.getInStock(),
+                        stats.getMinPrice(), stats.getMaxPrice()))
+                .toList();
+    }
+
+    /** Recomputes the facets from products; returns the number of categories. */
+    public int rebuildFacets() {
+        return categoryStatsRepository.rebuild();
+    }
+
+    // The stats rows are only touched when a product enters or leaves a category's
+    // figures: a change of category, price or in-stock, not of name or description
+    private void recount(Listing before, Product product) {
+        Listing after = Listing.of(product);
+        if (!after.equals(before)) {
+            countOut(before);
+            countIn(after);
+        }
+    }
+
+    private void countIn(Listing listing) {
+        if (listing.category() != null) {
+            categoryStatsRepository.add(listing.category(), listing.price(), listing.inStock());
+        }
+    }
+
+    private void countOut(Listing listing) {
+        if (listing.category() != null) {
+            categoryStatsRepository.remove(listing.category(), listing.price(), listing.inStock());
+            categoryStatsRepository.deleteIfEmpty(listing.category());
+        }
+    }
+
+    // What product_category_stats counts of a product
+    private record Listing(String category, long price, int inStock) {
+        static Listing of(Product product) {
+            String category = product.getCategory() == null || product.getCategory().isBlank()
+                    ? null : product.getCategory();
+            return new Listing(category, product.getPrice(),
+                    product.getStockQuantity() != null && product.getStockQuantity() > 0 ? 1 : 0);
+        }
     }
 
     private ProductResponse mapToProductResponse(Product product) {
@@ -0,0 +1,19 @@
+-- Baseline schema for product-service. Written with IF NOT EXISTS so it also applies
+-- cleanly to databases that were previously managed by hibernate ddl-auto.
+
+CREATE TABLE IF NOT EXISTS products (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name           VARCHAR(255) NOT NULL,
+    description    VARCHAR(255),
+    price          BIGINT       NOT NULL,
+    stock_quantity INTEGER      NOT NULL,
+    category       VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS product_audit (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id  BIGINT,
+    action      VARCHAR(255),
+    admin_email VARCHAR(255),
+    timestamp   TIMESTAMP(6)
+);
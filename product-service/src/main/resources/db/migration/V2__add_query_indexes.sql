@@ -0,0 +1,12 @@
+-- Spring Data derives IgnoreCase queries as upper(column) = upper(?), so the
+-- indexes are built on the same expression to be usable by the planner.
+
+-- findByCategoryIgnoreCase
+CREATE INDEX IF NOT EXISTS idx_products_category_upper ON products (upper(category));
+
+-- findByNameContainingIgnoreCase issues upper(name) LIKE upper('%term%'), which a
+-- btree cannot serve. A trigram GIN index covers infix matching.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_products_name_upper_trgm ON products USING gin (upper(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_product_audit_product_id ON product_audit (product_id);
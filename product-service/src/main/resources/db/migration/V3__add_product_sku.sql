@@ -0,0 +1,7 @@
+-- Supplier SKU, the key the bulk import upserts on. Products created one at a time
+-- through the API may leave it empty; a unique index allows any number of NULLs.
+ALTER TABLE products ADD COLUMN IF NOT EXISTS sku VARCHAR(64);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_products_sku ON products (sku);
+
+-- One audit row covers a whole import batch and records how many rows it wrote
+ALTER TABLE product_audit ADD COLUMN IF NOT EXISTS row_count INTEGER;
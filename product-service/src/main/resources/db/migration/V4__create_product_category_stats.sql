@@ -0,0 +1,19 @@
+-- Per-category counts and price range behind GET /api/products/facets. ProductService
+-- keeps the rows current as products change; the INSERT below is also how
+-- ProductCategoryStatsRepository.rebuild() recomputes them.
+-- Keyed on upper(category), like the IgnoreCase lookups and idx_products_category_upper.
+CREATE TABLE IF NOT EXISTS product_category_stats (
+    category_key VARCHAR(255) PRIMARY KEY,
+    category     VARCHAR(255) NOT NULL,
+    products     BIGINT       NOT NULL,
+    in_stock     BIGINT       NOT NULL,
+    min_price    BIGINT       NOT NULL,
+    max_price    BIGINT       NOT NULL
+);
+
+INSERT INTO product_category_stats (category_key, category, products, in_stock, min_price, max_price)
+SELECT upper(category), min(category), count(*), count(*) FILTER (WHERE stock_quantity > 0), min(price), max(price)
+FROM products
+WHERE btrim(category) <> ''
+GROUP BY upper(category)
+ON CONFLICT (category_key) DO NOTHING;
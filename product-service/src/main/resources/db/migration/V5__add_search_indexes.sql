@@ -0,0 +1,18 @@
+-- Indexes behind ProductSpecifications and the search sort orders. A category is the
+-- usual first filter, so it leads each composite; the second column is the sort key
+-- or range, and the index hands rows back already sorted for a LIMIT to stop early.
+-- The in-stock filter is left to a recheck: almost every product is in stock.
+
+-- category + price range, sort=PRICE / PRICE_DESC
+CREATE INDEX IF NOT EXISTS idx_products_category_price ON products (upper(category), price, id);
+-- category, sort=NAME
+CREATE INDEX IF NOT EXISTS idx_products_category_name ON products (upper(category), name, id);
+-- category, sort=NEWEST (ids are assigned in insert order)
+CREATE INDEX IF NOT EXISTS idx_products_category_id ON products (upper(category), id);
+
+-- price range or sort across all categories; sort=NEWEST uses the primary key
+CREATE INDEX IF NOT EXISTS idx_products_price ON products (price, id);
+CREATE INDEX IF NOT EXISTS idx_products_name ON products (name, id);
+
+-- Every query it served is covered by the composites above
+DROP INDEX IF EXISTS idx_products_category_upper;
@@ -0,0 +1,6 @@
+-- Validators for conditional GETs (ETag / Last-Modified). version counts the changes
+-- to a product and updated_at is when the last one happened; both are kept by
+-- Product's callbacks and by the bulk import's upsert. now() is evaluated once here,
+-- so adding the columns does not rewrite the table.
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE products ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6) NOT NULL DEFAULT now();
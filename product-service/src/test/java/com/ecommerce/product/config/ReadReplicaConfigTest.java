@@ -0,0 +1,206 @@
+package com.ecommerce.product.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the routing DataSource over two H2 databases, each of which answers with its
+ * own name. {@link Standby} stands in for the PostgreSQL functions of the lag query.
+ */
+class ReadReplicaConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReadReplicaConfig config = new ReadReplicaConfig();
+    private final ReplicaRouting routing = new ReplicaRouting(meterRegistry);
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate reads;
+    private TransactionTemplate writes;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Standby.replayLag = 0;
+        ReflectionTestUtils.setField(routing, "enabled", true);
+        ReflectionTestUtils.setField(routing, "stickyWindow", Duration.ofMinutes(1));
+
+        primary = config.primaryDataSource(properties(database("primary")));
+        String replicaUrl = database("replica");
+        replica = config.replicaDataSource(properties(replicaUrl), replicaUrl, "sa", "");
+        DataSource dataSource = config.routingDataSource(primary, replica, routing);
+
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+        writes = new TransactionTemplate(transactionManager);
+
+        // The proxy reads the connection defaults from the write side once; leave that out of the counts
+        write();
+        meterRegistry.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(read()).isEqualTo("replica");
+        assertThat(write()).isEqualTo("primary");
+
+        assertThat(routed("replica", "read")).isEqualTo(1);
+        assertThat(routed("primary", "write")).isEqualTo(1);
+    }
+
+    @Test
+    void userWhoWroteReadsFromThePrimaryForTheStickyWindow() {
+        routing.recordWrite("alice@shop.test");
+
+        signIn("alice@shop.test");
+        assertThat(read()).isEqualTo("primary");
+        signIn("bob@shop.test");
+        assertThat(read()).isEqualTo("replica");
+
+        ReflectionTestUtils.setField(routing, "stickyWindow", Duration.ZERO);
+        signIn("alice@shop.test");
+        assertThat(read()).isEqualTo("replica");
+        assertThat(routed("primary", "sticky")).isEqualTo(1);
+        assertThat(routed("replica", "read")).isEqualTo(2);
+    }
+
+    @Test
+    void writesAreNotRecordedWithoutAReplica() {
+        ReflectionTestUtils.setField(routing, "enabled", false);
+        routing.recordWrite("alice@shop.test");
+
+        signIn("alice@shop.test");
+        assertThat(read()).isEqualTo("replica");
+    }
+
+    @Test
+    void laggingOrUnreachableReplicaIsBypassed() throws InterruptedException {
+        ScheduledExecutorService monitor = config.replicaLagMonitor(replica, routing, meterRegistry,
+                Duration.ofSeconds(2), Duration.ofMillis(10), Duration.ofMinutes(1));
+        try {
+            Standby.replayLag = 10;
+            awaitUntil(() -> !routing.replicaUsable());
+            assertThat(read()).isEqualTo("primary");
+            assertThat(routed("primary", "lag")).isEqualTo(1);
+            assertThat(meterRegistry.get("db.replica.lag").gauge().value()).isGreaterThan(2);
+
+            Standby.replayLag = 1;
+            awaitUntil(routing::replicaUsable);
+            assertThat(read()).isEqualTo("replica");
+
+            Standby.replayLag = Double.NaN;
+            awaitUntil(() -> !routing.replicaUsable());
+            assertThat(meterRegistry.get("db.replica.lag").gauge().value()).isNaN();
+        } finally {
+            monitor.shutdownNow();
+        }
+    }
+
+    private String read() {
+        return reads.execute(status -> jdbc.queryForObject("SELECT name FROM pool", String.class));
+    }
+
+    private String write() {
+        return writes.execute(status -> jdbc.queryForObject("SELECT name FROM pool", String.class));
+    }
+
+    private double routed(String pool, String reason) {
+        var counter = meterRegistry.find("db.routing").tags("pool", pool, "reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void signIn(String user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    // A fresh database holding its own name, with the functions the lag query calls
+    private static String database(String name) throws SQLException {
+        String url = "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE pool (name VARCHAR(16))");
+            statement.execute("INSERT INTO pool VALUES ('" + name + "')");
+            String self = Standby.class.getName();
+            statement.execute("CREATE ALIAS pg_is_in_recovery FOR \"" + self + ".inRecovery\"");
+            statement.execute("CREATE ALIAS pg_last_wal_receive_lsn FOR \"" + self + ".receiveLsn\"");
+            statement.execute("CREATE ALIAS pg_last_wal_replay_lsn FOR \"" + self + ".replayLsn\"");
+            statement.execute("CREATE ALIAS pg_last_xact_replay_timestamp FOR \"" + self + ".replayTimestamp\"");
+        }
+        return url;
+    }
+
+    private static DataSourceProperties properties(String url) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(url);
+        properties.setUsername("sa");
+        properties.setPassword("");
+        return properties;
+    }
+
+    // Called by H2, which needs a public class
+    public static class Standby {
+
+        // What the stand-in replica reports: seconds behind, or NaN when unreachable
+        static volatile double replayLag;
+
+        public static boolean inRecovery() throws SQLException {
+            if (Double.isNaN(replayLag)) {
+                throw new SQLException("replica unreachable");
+            }
+            return true;
+        }
+
+        public static String receiveLsn() {
+            return replayLag > 0 ? "0/2" : "0/1";
+        }
+
+        public static String replayLsn() {
+            return "0/1";
+        }
+
+        public static Timestamp replayTimestamp() {
+            return new Timestamp(System.currentTimeMillis() - (long) (replayLag * 1000));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductImportReaderTest {
+
+    private static final String HEADER = "sku,name,description,price,stock_quantity,category\n";
+
+    @Test
+    void readsColumnsInHeaderOrder() throws IOException {
+        List<ProductImportReader.Parsed> rows = csv("""
+                category,stockQuantity,price,name,sku
+                tools,5,1999,Hammer,HAM-1
+                """);
+
+        assertThat(rows).singleElement().satisfies(parsed -> {
+            assertThat(parsed.line()).isEqualTo(2);
+            assertThat(parsed.error()).isNull();
+            assertThat(parsed.row()).isEqualTo(new ProductImportRow("HAM-1", "Hammer", null, 1999L, 5, "tools"));
+        });
+    }
+
+    @Test
+    void headerMayStartWithByteOrderMark() throws IOException {
+        assertThat(csv("\uFEFF" + HEADER + "A-1,Anvil,,10,1,\n")).singleElement()
+                .satisfies(parsed -> assertThat(parsed.row().sku()).isEqualTo("A-1"));
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        List<ProductImportReader.Parsed> rows = csv(HEADER
+                + "Q-1,\"Item 1, \"\"deluxe\"\"\",\"two\nlines\",100,2,cat\n"
+                + "Q-2,Plain,,200,3,cat\n");
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).row().name()).isEqualTo("Item 1, \"deluxe\"");
+        assertThat(rows.get(0).row().description()).isEqualTo("two\nlines");
+        // the quoted line break moves the next record down a line
+        assertThat(rows.get(1).line()).isEqualTo(4);
+    }
+
+    @Test
+    void emptyFieldsAreNullButEmptyQuotedFieldsAreNot() throws IOException {
+        assertThat(csv(HEADER + "E-1,Empty,\"\",1,1,\n")).singleElement().satisfies(parsed -> {
+            assertThat(parsed.row().description()).isEmpty();
+            assertThat(parsed.row().category()).isNull();
+        });
+    }
+
+    @Test
+    void blankLinesAreSkippedAndLinesStillCounted() throws IOException {
+        List<ProductImportReader.Parsed> rows = csv(HEADER + "\nB-1,One,,1,1,\n\n\nB-2,Two,,2,2,\n");
+
+        assertThat(rows).extracting(ProductImportReader.Parsed::line).containsExactly(3L, 6L);
+    }
+
+    @Test
+    void badNumbersAreReportedAndReadingCarriesOn() throws IOException {
+        List<ProductImportReader.Parsed> rows = csv(HEADER
+                + "N-1,Price,,12.50,1,\n"
+                + "N-2,NoPrice,,,1,\n"
+                + "N-3,Stock,,1,99999999999,\n"
+                + "N-4,Fine,,1,1,\n");
+
+        assertThat(rows).extracting(ProductImportReader.Parsed::error).containsExactly(
+                "price is not a whole number: 12.50",
+                "price is required",
+                "stockQuantity is out of range",
+                null);
+        assertThat(rows.get(3).row().sku()).isEqualTo("N-4");
+    }
+
+    @Test
+    void wrongFieldCountIsReported() throws IOException {
+        assertThat(csv(HEADER + "W-1,Short,,1\n")).singleElement()
+                .satisfies(parsed -> assertThat(parsed.error()).isEqualTo("Expected 6 fields, found 4"));
+    }
+
+    @Test
+    void unclosedQuoteIsReported() throws IOException {
+        assertThat(csv(HEADER + "U-1,\"Open,,1,1,\n")).singleElement()
+                .satisfies(parsed -> assertThat(parsed.error()).isEqualTo("Quoted field is not closed"));
+    }
+
+    @Test
+    void headerMustNameRequiredColumns() {
+        assertThatThrownBy(() -> csv("sku,name,price\nX,Y,1\n"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("'stockquantity'");
+        assertThatThrownBy(() -> csv(""))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("no header row");
+    }
+
+    @Test
+    void ndjsonReportsInvalidLinesAndSkipsBlankOnes() throws IOException {
+        List<ProductImportReader.Parsed> rows = read(MediaType.APPLICATION_NDJSON, """
+                {"sku":"J-1","name":"One","price":1,"stockQuantity":1}
+
+                {"sku":"J-2",
+                """);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).row().sku()).isEqualTo("J-1");
+        assertThat(rows.get(1).line()).isEqualTo(3);
+        assertThat(rows.get(1).error()).startsWith("Invalid JSON");
+    }
+
+    private static List<ProductImportReader.Parsed> csv(String body) throws IOException {
+        return read(ProductImportReader.TEXT_CSV, body);
+    }
+
+    private static List<ProductImportReader.Parsed> read(MediaType contentType, String body) throws IOException {
+        ProductImportReader reader = ProductImportReader.of(contentType,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), new ObjectMapper());
+        List<ProductImportReader.Parsed> rows = new ArrayList<>();
+        for (ProductImportReader.Parsed parsed = reader.next(); parsed != null; parsed = reader.next()) {
+            rows.add(parsed);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ReplicaRouting;
+import com.ecommerce.product.dto.ProductRequest;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.repository.ProductAuditRepository;
+import com.ecommerce.product.repository.ProductCategoryStatsRepository;
+import com.ecommerce.product.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductCategoryStatsRepository categoryStatsRepository = mock(ProductCategoryStatsRepository.class);
+    private final ProductService productService = new ProductService(productRepository,
+            mock(ProductAuditRepository.class), mock(ReplicaRouting.class), categoryStatsRepository);
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("admin@shop.test", null, List.of()));
+        when(productRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void createCountsTheProductIntoItsCategory() {
+        productService.createProduct(new ProductRequest("Novel", "", 1200L, 3, "Books"));
+
+        verify(categoryStatsRepository).add("Books", 1200L, 1);
+    }
+
+    @Test
+    void priceChangeCountsTheOldPriceOutBeforeTheNewOneIn() {
+        // remove() re-reads min/max only when the old price was the category's cheapest or dearest
+        stored(product("Books", 1200L, 3));
+
+        productService.updateProduct(1L, new ProductRequest("Novel", "", 900L, 3, "Books"));
+
+        InOrder order = inOrder(categoryStatsRepository);
+        order.verify(categoryStatsRepository).remove("Books", 1200L, 1);
+        order.verify(categoryStatsRepository).deleteIfEmpty("Books");
+        order.verify(categoryStatsRepository).add("Books", 900L, 1);
+    }
+
+    @Test
+    void movingCategoryLeavesTheOldOneAndJoinsTheNew() {
+        stored(product("Books", 1200L, 3));
+
+        productService.updateProduct(1L, new ProductRequest("Novel", "", 1200L, 3, "Comics"));
+
+        verify(categoryStatsRepository).remove("Books", 1200L, 1);
+        verify(categoryStatsRepository).deleteIfEmpty("Books");
+        verify(categoryStatsRepository).add("Comics", 1200L, 1);
+    }
+
+    @Test
+    void renameDoesNotTouchTheStats() {
+        stored(product("Books", 1200L, 3));
+
+        productService.updateProduct(1L, new ProductRequest("Renamed", "new blurb", 1200L, 5, "Books"));
+
+        verifyNoInteractions(categoryStatsRepository);
+    }
+
+    @Test
+    void sellingTheLastUnitTakesTheProductOutOfStock() {
+        stored(product("Books", 1200L, 2));
+
+        productService.reduceStock(1L, 1);
+        verifyNoInteractions(categoryStatsRepository);
+        productService.reduceStock(1L, 1);
+
+        verify(categoryStatsRepository).remove("Books", 1200L, 1);
+        verify(categoryStatsRepository).add("Books", 1200L, 0);
+    }
+
+    @Test
+    void deleteCountsTheProductOutAndDropsAnEmptyCategory() {
+        stored(product("Books", 1200L, 0));
+
+        productService.deleteProduct(1L);
+
+        verify(categoryStatsRepository).remove("Books", 1200L, 0);
+        verify(categoryStatsRepository).deleteIfEmpty("Books");
+    }
+
+    @Test
+    void productsWithoutACategoryAreNotCounted() {
+        productService.createProduct(new ProductRequest("Loose", "", 100L, 1, " "));
+        stored(product(null, 100L, 1));
+        productService.updateProduct(1L, new ProductRequest("Loose", "", 200L, 1, null));
+        productService.deleteProduct(1L);
+
+        verifyNoInteractions(categoryStatsRepository);
+    }
+
+    @Test
+    void rebuildLocksProductsBeforeItReadsThem() {
+        ProductCategoryStatsRepository repository = mock(ProductCategoryStatsRepository.class, CALLS_REAL_METHODS);
+
+        assertThat(repository.rebuild()).isZero();
+
+        InOrder order = inOrder(repository);
+        order.verify(repository).lockProducts();
+        order.verify(repository).deleteAllRows();
+        order.verify(repository).insertFromProducts();
+    }
+
+    private void stored(Product product) {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+    }
+
+    private static Product product(String category, long price, int stock) {
+        return Product.builder()
+                .id(1L)
+                .name("Novel")
+                .price(price)
+                .stockQuantity(stock)
+                .category(category)
+                .build();
+    }
+}